@@ -8,6 +8,7 @@ import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
 import de.ddm.actors.patterns.Reaper;
+import de.ddm.actors.profiling.ColumnStore;
 import de.ddm.actors.profiling.DependencyWorker;
 import de.ddm.serialization.AkkaSerializable;
 import de.ddm.singletons.SystemConfigurationSingleton;
@@ -24,6 +25,7 @@ public class Worker extends AbstractBehavior<Worker.Message> {
 
     public static final String DEFAULT_NAME = "worker";
     final List<ActorRef<DependencyWorker.Message>> workers;
+    final ActorRef<ColumnStore.Message> columnStore;
 
     ////////////////////////
     // Actor Construction //
@@ -35,9 +37,12 @@ public class Worker extends AbstractBehavior<Worker.Message> {
 
         final int numWorkers = SystemConfigurationSingleton.get().getNumWorkers();
 
+        // All workers of this node share one column store, so every column travels to the node only once
+        this.columnStore = context.spawn(ColumnStore.create(), ColumnStore.DEFAULT_NAME);
+
         this.workers = new ArrayList<>(numWorkers);
         for (int id = 0; id < numWorkers; id++)
-            this.workers.add(context.spawn(DependencyWorker.create(), DependencyWorker.DEFAULT_NAME + "_" + id, DispatcherSelector.fromConfig("akka.worker-pool-dispatcher")));
+            this.workers.add(context.spawn(DependencyWorker.create(this.columnStore), DependencyWorker.DEFAULT_NAME + "_" + id, DispatcherSelector.fromConfig("akka.worker-pool-dispatcher")));
     }
 
     public static Behavior<Message> create() {
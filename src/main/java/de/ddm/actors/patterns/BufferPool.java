@@ -0,0 +1,44 @@
+package de.ddm.actors.patterns;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Recycles byte arrays in power-of-two size classes; not thread-safe, so every actor should own its pool
+public class BufferPool {
+
+    private static final int MIN_SIZE_CLASS = 10;
+
+    private final long capacity;
+    private final List<Deque<byte[]>> sizeClasses;
+    private long pooledBytes = 0;
+
+    public BufferPool(long capacity) {
+        this.capacity = capacity;
+        this.sizeClasses = new ArrayList<>(Integer.SIZE);
+        for (int i = 0; i < Integer.SIZE; i++)
+            this.sizeClasses.add(new ArrayDeque<>());
+    }
+
+    // Returns an array of at least the given size; its content is undefined
+    public byte[] acquire(int size) {
+        int sizeClass = sizeClassOf(size);
+        byte[] buffer = this.sizeClasses.get(sizeClass).poll();
+        if (buffer == null)
+            return new byte[sizeClass < Integer.SIZE - 1 ? 1 << sizeClass : Integer.MAX_VALUE - 8];
+        this.pooledBytes -= buffer.length;
+        return buffer;
+    }
+
+    public void release(byte[] buffer) {
+        if (this.pooledBytes + buffer.length > this.capacity || Integer.bitCount(buffer.length) != 1)
+            return;
+        this.sizeClasses.get(sizeClassOf(buffer.length)).push(buffer);
+        this.pooledBytes += buffer.length;
+    }
+
+    private static int sizeClassOf(int size) {
+        return Math.max(MIN_SIZE_CLASS, Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1));
+    }
+}
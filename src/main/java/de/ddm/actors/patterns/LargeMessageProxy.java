@@ -15,9 +15,16 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
-import java.util.Arrays;
+import java.io.NotSerializableException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Message> {
 
@@ -27,10 +34,20 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 
     public static final String DEFAULT_NAME = "largeMessageProxy";
     public static int MAX_MESSAGE_SIZE = 100000;
+    public static int WINDOW_SIZE = 8; // The number of chunks that may be in flight per transmission before the receiver acknowledges them
+    public static boolean COMPRESSION_ENABLED = true; // Whether this proxy offers and accepts compressed transmissions
+    public static int COMPRESSION_THRESHOLD = 64 * 1024; // The serialized size from which on a transmission is offered compressed
+    public static long MAX_POOLED_BYTES = 256L * 1024 * 1024; // The number of bytes that a proxy keeps in its pool of receive buffers
+    public static int MAX_CHUNKS_IN_FLIGHT = 16; // The number of chunks that may be in flight across all transmissions of a proxy
+    private static final long LANE_STRIDE = 1 << 20; // The virtual time that a lane advances per chunk, divided by its weight
     private final ActorRef<LargeMessage> parent;
     private final Map<Integer, SendState> pendingSends = new HashMap<>();
     private final Map<Integer, ReceiveState> pendingReceives = new HashMap<>();
+    private final Map<Lane, Deque<Integer>> laneTransmissions = new EnumMap<>(Lane.class);
+    private final long[] lanePasses = new long[Lane.values().length];
+    private long virtualTime = 0;
     private final Serialization serialization = SerializationExtension.get(this.getContext().getSystem());
+    private final BufferPool bufferPool = new BufferPool(MAX_POOLED_BYTES);
     private int messageCounter = 0;
 
     ////////////////////////
@@ -41,6 +58,8 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
         super(context);
 
         this.parent = parent;
+        for (Lane lane : Lane.values())
+            this.laneTransmissions.put(lane, new ArrayDeque<>());
     }
 
     public static Behavior<Message> create(ActorRef<LargeMessage> parent) {
@@ -51,6 +70,7 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
     public Receive<Message> createReceive() {
         return newReceiveBuilder()
                 .onMessage(SendMessage.class, this::handle)
+                .onMessage(DirectMessage.class, this::handle)
                 .onMessage(ConnectMessage.class, this::handle)
                 .onMessage(ConnectAckMessage.class, this::handle)
                 .onMessage(BytesMessage.class, this::handle)
@@ -66,9 +86,21 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
         String manifest = Serializers.manifestFor(this.serialization.findSerializerFor(largeMessage), largeMessage);
 
         int senderTransmissionKey = this.messageCounter++;
-        this.pendingSends.put(senderTransmissionKey, new SendState(bytes, 0, message.getReceiverProxy()));
 
-        message.getReceiverProxy().tell(new ConnectMessage(senderTransmissionKey, this.getContext().getSelf(), bytes.length, serializerId, manifest));
+        // Payloads that fit into a single chunk skip the handshake, but still queue in their lane, so that control traffic overtakes queued
+        // bulk transfers and bulk messages do not crowd out control traffic; note that they may overtake a chunked transmission to the same receiver
+        if (bytes.length <= MAX_MESSAGE_SIZE) {
+            DirectMessage directMessage = new DirectMessage(ByteBuffer.wrap(bytes), serializerId, manifest);
+            this.pendingSends.put(senderTransmissionKey, new SendState(bytes, 0, 0, 0, WINDOW_SIZE, message.getReceiverProxy(), -1, message.getLane(), null, null, directMessage));
+            this.enqueue(senderTransmissionKey, message.getLane());
+            return this.dispatch();
+        }
+
+        Codec codec = COMPRESSION_ENABLED && bytes.length >= COMPRESSION_THRESHOLD ? Codec.DEFLATE : Codec.NONE;
+
+        this.pendingSends.put(senderTransmissionKey, new SendState(bytes, 0, 0, 0, WINDOW_SIZE, message.getReceiverProxy(), -1, message.getLane(), null, null, null));
+
+        message.getReceiverProxy().tell(new ConnectMessage(senderTransmissionKey, this.getContext().getSelf(), bytes.length, serializerId, manifest, WINDOW_SIZE, codec));
         return this;
     }
 
@@ -76,64 +108,176 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
     // Actor State //
     /////////////////
 
+    private Behavior<Message> handle(DirectMessage message) throws NotSerializableException {
+        LargeMessage largeMessage = (LargeMessage) this.serialization.deserializeByteBuffer(message.getBytes().duplicate(), message.getSerializerId(), message.getManifest());
+
+        this.parent.tell(largeMessage);
+        return this;
+    }
+
     private Behavior<Message> handle(ConnectMessage message) {
         int receiverTransmissionKey = this.messageCounter++;
-        this.pendingReceives.put(receiverTransmissionKey, new ReceiveState(new byte[message.getLargeMessageSize()], 0, message.getSenderProxy(), message.getSerializerId(), message.getManifest()));
+        int ackInterval = ackInterval(message.getWindowSize());
+        Codec codec = COMPRESSION_ENABLED ? message.getCodec() : Codec.NONE;
+        Inflater inflater = codec == Codec.DEFLATE ? new Inflater() : null;
+        this.pendingReceives.put(receiverTransmissionKey, new ReceiveState(this.bufferPool.acquire(message.getLargeMessageSize()), message.getLargeMessageSize(), 0, 0, ackInterval, message.getSenderProxy(), message.getSerializerId(), message.getManifest(), inflater, 0));
 
-        message.getSenderProxy().tell(new ConnectAckMessage(message.getSenderTransmissionKey(), receiverTransmissionKey));
+        message.getSenderProxy().tell(new ConnectAckMessage(message.getSenderTransmissionKey(), receiverTransmissionKey, codec));
         return this;
     }
 
     private Behavior<Message> handle(ConnectAckMessage message) {
-        return this.sendNext(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey());
-    }
+        SendState state = this.pendingSends.get(message.getSenderTransmissionKey());
+        if (state == null)
+            return this;
 
-    private Behavior<Message> handle(BytesAckMessage message) {
-        return this.sendNext(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey());
-    }
+        if (message.getCodec() == Codec.DEFLATE)
+            state.startDeflating();
+        state.setReceiverTransmissionKey(message.getReceiverTransmissionKey());
 
-    private Behavior<Message> sendNext(int senderTransmissionKey, int receiverTransmissionKey) {
-        ActorRef<Message> receiverProxy = this.pendingSends.get(senderTransmissionKey).getReceiverProxy();
+        this.enqueue(message.getSenderTransmissionKey(), state.getLane());
+        return this.dispatch();
+    }
 
-        SendState state = this.pendingSends.get(senderTransmissionKey);
+    // A lane that was idle joins at the current virtual time instead of claiming the chunks it did not use
+    private void enqueue(int senderTransmissionKey, Lane lane) {
+        Deque<Integer> transmissions = this.laneTransmissions.get(lane);
+        if (transmissions.isEmpty())
+            this.lanePasses[lane.ordinal()] = Math.max(this.lanePasses[lane.ordinal()], this.virtualTime);
+        transmissions.addLast(senderTransmissionKey);
+    }
 
-        byte[] bytes = state.getBytes();
-        int startOffset = state.getOffset();
-        int endOffset = Math.min(startOffset + MAX_MESSAGE_SIZE, bytes.length);
+    private Behavior<Message> handle(BytesAckMessage message) {
+        SendState state = this.pendingSends.get(message.getSenderTransmissionKey());
+        if (state == null)
+            return this;
 
-        byte[] nextBytes = Arrays.copyOfRange(bytes, startOffset, endOffset);
-        state.setOffset(endOffset);
+        // Acknowledgements are cumulative, so a late one never moves the window backwards
+        state.setAcknowledgedOffset(Math.max(state.getAcknowledgedOffset(), message.getAcknowledgedOffset()));
+        return this.dispatch();
+    }
 
-        if (endOffset == bytes.length)
-            this.pendingSends.remove(senderTransmissionKey);
+    private static int ackInterval(int windowSize) {
+        return Math.max(1, windowSize / 2);
+    }
 
-        receiverProxy.tell(new BytesMessage(nextBytes, senderTransmissionKey, receiverTransmissionKey));
+    // Sends chunks of the connected transmissions until the proxy-wide budget is used up: lanes are served by
+    // weighted fair queuing (the lane with the lowest virtual pass goes next) and transmissions within a lane round-robin
+    private Behavior<Message> dispatch() {
+        long budget = (long) MAX_CHUNKS_IN_FLIGHT * MAX_MESSAGE_SIZE;
+        long inFlight = 0;
+        for (SendState state : this.pendingSends.values())
+            inFlight += state.getOffset() - state.getAcknowledgedOffset();
+
+        while (true) {
+            boolean overBudget = inFlight >= budget;
+            Lane lane = null;
+            Integer senderTransmissionKey = null;
+            for (Lane candidate : Lane.values()) {
+                if (lane != null && this.lanePasses[candidate.ordinal()] >= this.lanePasses[lane.ordinal()])
+                    continue;
+                Integer key = this.nextSendable(candidate, overBudget);
+                if (key != null) {
+                    lane = candidate;
+                    senderTransmissionKey = key;
+                }
+            }
+            if (lane == null)
+                break;
+
+            SendState state = this.pendingSends.get(senderTransmissionKey);
+            int startOffset = state.getOffset();
+            ByteBuffer nextBytes = state.nextChunk();
+            state.setOffset(startOffset + nextBytes.remaining());
+            state.setSentChunks(state.getSentChunks() + 1);
+            inFlight += nextBytes.remaining();
+
+            if (state.getDirectMessage() != null)
+                state.getReceiverProxy().tell(state.getDirectMessage());
+            else
+                state.getReceiverProxy().tell(new BytesMessage(nextBytes, startOffset, senderTransmissionKey, state.getReceiverTransmissionKey()));
+
+            this.virtualTime = this.lanePasses[lane.ordinal()];
+            this.lanePasses[lane.ordinal()] += LANE_STRIDE / lane.getWeight();
+
+            Deque<Integer> transmissions = this.laneTransmissions.get(lane);
+            transmissions.remove(senderTransmissionKey);
+            if (state.isSent()) {
+                if (state.getDeflater() != null)
+                    state.getDeflater().end();
+                this.pendingSends.remove(senderTransmissionKey);
+                // Receivers do not acknowledge a transmission's last chunks, so they stop counting against the budget once it is sent
+                inFlight -= state.getOffset() - state.getAcknowledgedOffset();
+            } else {
+                transmissions.addLast(senderTransmissionKey);
+            }
+        }
         return this;
     }
 
-    private Behavior<Message> handle(BytesMessage message) {
+    // Over budget, a transmission may still complete the chunks that the receiver awaits before its next acknowledgement;
+    // otherwise, transmissions that share a small budget could all stall below their acknowledgement interval
+    private Integer nextSendable(Lane lane, boolean overBudget) {
+        for (Integer senderTransmissionKey : this.laneTransmissions.get(lane)) {
+            SendState state = this.pendingSends.get(senderTransmissionKey);
+            if (state.getOffset() - state.getAcknowledgedOffset() >= (long) state.getWindowSize() * MAX_MESSAGE_SIZE)
+                continue;
+            if (!overBudget || state.getSentChunks() % ackInterval(state.getWindowSize()) != 0)
+                return senderTransmissionKey;
+        }
+        return null;
+    }
+
+    private Behavior<Message> handle(BytesMessage message) throws NotSerializableException, DataFormatException {
         ReceiveState receiveState = this.pendingReceives.get(message.getReceiverTransmissionKey());
+        if (receiveState == null)
+            return this; // The transmission is unknown or already complete, so the chunk carries nothing that is still needed
 
         byte[] bytes = receiveState.getBytes();
-        int offset = receiveState.getOffset();
+        int chunkSize = message.getBytes().remaining();
 
-        System.arraycopy(message.getBytes(), 0, bytes, offset, message.getBytes().length);
+        if (receiveState.getInflater() != null) {
+            receiveState.inflate(message.getBytes());
+        } else {
+            // Read through a duplicate, because a local sender shares the chunk's buffer with us
+            message.getBytes().duplicate().get(bytes, message.getOffset(), chunkSize);
+        }
 
-        receiveState.setOffset(offset + message.getBytes().length);
+        receiveState.setOffset(receiveState.getOffset() + chunkSize);
+        receiveState.setUnacknowledgedChunks(receiveState.getUnacknowledgedChunks() + 1);
 
-        if (receiveState.getOffset() != bytes.length) {
-            receiveState.getSenderProxy().tell(new BytesAckMessage(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey()));
+        if (!receiveState.isReceived()) {
+            if (receiveState.getUnacknowledgedChunks() >= receiveState.getAckInterval()) {
+                receiveState.setUnacknowledgedChunks(0);
+                receiveState.getSenderProxy().tell(new BytesAckMessage(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey(), receiveState.getOffset()));
+            }
             return this;
         }
 
         this.pendingReceives.remove(message.getReceiverTransmissionKey());
+        if (receiveState.getInflater() != null)
+            receiveState.getInflater().end();
 
-        LargeMessage largeMessage = (LargeMessage) this.serialization.deserialize(bytes, receiveState.getSerializerId(), receiveState.getManifest()).get();
+        LargeMessage largeMessage = (LargeMessage) this.serialization.deserializeByteBuffer(ByteBuffer.wrap(bytes, 0, receiveState.getLength()), receiveState.getSerializerId(), receiveState.getManifest());
+        this.bufferPool.release(bytes);
 
         this.parent.tell(largeMessage);
         return this;
     }
 
+    public enum Codec {
+        NONE, DEFLATE
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public enum Lane {
+        HIGH(4), // Tasks, results and other control traffic that actors wait for
+        BULK(1); // Column data and other large transfers
+
+        private final int weight; // The share of chunks that the lane receives while other lanes compete for the proxy
+    }
+
     public interface LargeMessage extends AkkaSerializable {
     }
 
@@ -151,6 +295,21 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
         private static final long serialVersionUID = -1203695340601241430L;
         private LargeMessage message;
         private ActorRef<Message> receiverProxy;
+        private Lane lane;
+
+        public SendMessage(LargeMessage message, ActorRef<Message> receiverProxy) {
+            this(message, receiverProxy, Lane.BULK);
+        }
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DirectMessage implements Message {
+        private static final long serialVersionUID = 3180246617416436095L;
+        private ByteBuffer bytes;
+        private int serializerId;
+        private String manifest;
     }
 
     @Getter
@@ -163,6 +322,8 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
         private int largeMessageSize;
         private int serializerId;
         private String manifest;
+        private int windowSize;
+        private Codec codec;
     }
 
     @Getter
@@ -172,6 +333,7 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
         private static final long serialVersionUID = 6497424731575554980L;
         private int senderTransmissionKey;
         private int receiverTransmissionKey;
+        private Codec codec;
     }
 
     @Getter
@@ -179,7 +341,8 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
     @AllArgsConstructor
     public static class BytesMessage implements Message {
         private static final long serialVersionUID = -8435193720156121630L;
-        private byte[] bytes;
+        private ByteBuffer bytes;
+        private int offset;
         private int senderTransmissionKey;
         private int receiverTransmissionKey;
     }
@@ -191,6 +354,7 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
         private static final long serialVersionUID = 5992096322167014051L;
         private int senderTransmissionKey;
         private int receiverTransmissionKey;
+        private int acknowledgedOffset;
     }
 
     @Data
@@ -198,17 +362,79 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
     private static class SendState {
         private byte[] bytes;
         private int offset;
+        private int acknowledgedOffset;
+        private int sentChunks;
+        private int windowSize;
         private ActorRef<Message> receiverProxy;
+        private int receiverTransmissionKey;
+        private Lane lane;
+        private Deflater deflater;
+        private ByteBuffer deflatedChunk;   // The next compressed chunk, which is empty once the deflater has no more output
+        private DirectMessage directMessage; // The whole payload if it fits into one chunk, which the receiver takes without a handshake
+
+        boolean isSent() {
+            return this.deflater == null ? this.offset == this.bytes.length : !this.deflatedChunk.hasRemaining();
+        }
+
+        void startDeflating() {
+            this.deflater = new Deflater(Deflater.BEST_SPEED);
+            this.deflater.setInput(this.bytes);
+            this.deflater.finish();
+            this.deflatedChunk = this.deflate();
+        }
+
+        // Chunks are compressed lazily, one chunk ahead of the sent ones, so that a transmission knows that it is complete
+        // when it sends its last chunk and never sends an empty one
+        ByteBuffer nextChunk() {
+            if (this.deflater == null) {
+                int endOffset = Math.min(this.offset + MAX_MESSAGE_SIZE, this.bytes.length);
+                return ByteBuffer.wrap(this.bytes, this.offset, endOffset - this.offset).slice();
+            }
+            ByteBuffer chunk = this.deflatedChunk;
+            this.deflatedChunk = this.deflate();
+            return chunk;
+        }
+
+        private ByteBuffer deflate() {
+            if (this.deflater.finished())
+                return ByteBuffer.allocate(0);
+            byte[] chunk = new byte[MAX_MESSAGE_SIZE];
+            int length = 0;
+            while (length < chunk.length && !this.deflater.finished())
+                length += this.deflater.deflate(chunk, length, chunk.length - length);
+            return ByteBuffer.wrap(chunk, 0, length);
+        }
     }
 
     @Data
     @AllArgsConstructor
     private static class ReceiveState {
         private byte[] bytes;
+        private int length;
         private int offset;
+        private int unacknowledgedChunks;
+        private int ackInterval;
         private ActorRef<Message> senderProxy;
         private int serializerId;
         private String manifest;
+        private Inflater inflater;
+        private int inflatedOffset;
+
+        boolean isReceived() {
+            return this.inflater == null ? this.offset == this.length : this.inflater.finished();
+        }
+
+        void inflate(ByteBuffer chunk) throws DataFormatException {
+            if (chunk.hasArray()) {
+                this.inflater.setInput(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            } else {
+                byte[] input = new byte[chunk.remaining()];
+                chunk.duplicate().get(input);
+                this.inflater.setInput(input);
+            }
+            while (!this.inflater.needsInput() && !this.inflater.finished())
+                this.inflatedOffset += this.inflater.inflate(this.bytes, this.inflatedOffset, this.length - this.inflatedOffset);
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package de.ddm.actors.profiling;
+
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.javadsl.AbstractBehavior;
+import akka.actor.typed.javadsl.ActorContext;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.Receive;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.serialization.AkkaSerializable;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.structures.ColumnArena;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+public class ColumnStore extends AbstractBehavior<ColumnStore.Message> {
+
+    ////////////////////
+    // Actor Messages //
+    ////////////////////
+
+    public static final String DEFAULT_NAME = "columnStore";
+    private final ActorRef<LargeMessageProxy.Message> largeMessageProxy;
+    private final LinkedHashMap<Integer, ColumnArena.Block> columns = new LinkedHashMap<>(16, 0.75f, true); // Iterates the columns from least to most recently used
+    private final Map<ActorRef<DependencyWorker.Message>, Collection<Integer>> servedColumns = new HashMap<>(); // The columns that each worker still validates against
+    private final Set<Integer> requestedColumns = new HashSet<>();
+    private final List<GetColumnsMessage> pendingRequests = new LinkedList<>();
+    private final ColumnArena arena;
+    private final long capacity;
+    private long storedBytes = 0;
+
+    ////////////////////////
+    // Actor Construction //
+    ////////////////////////
+
+    private ColumnStore(ActorContext<Message> context, long capacity, long slabSize) {
+        super(context);
+
+        this.largeMessageProxy = this.getContext().spawn(LargeMessageProxy.create(this.getContext().getSelf().unsafeUpcast()), LargeMessageProxy.DEFAULT_NAME);
+        this.capacity = capacity;
+        this.arena = new ColumnArena(capacity, slabSize);
+    }
+
+    public static Behavior<Message> create() {
+        return create(DomainConfigurationSingleton.get().getColumnStoreCapacity(), DomainConfigurationSingleton.get().getColumnArenaSlabSize());
+    }
+
+    public static Behavior<Message> create(long capacity, long slabSize) {
+        return Behaviors.setup(context -> new ColumnStore(context, capacity, slabSize));
+    }
+
+    @Override
+    public Receive<Message> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(GetColumnsMessage.class, this::handle)
+                .onMessage(ColumnsMessage.class, this::handle)
+                .onMessage(ReleaseColumnsMessage.class, this::handle)
+                .build();
+    }
+
+    /////////////////
+    // Actor State //
+    /////////////////
+
+    private Behavior<Message> handle(GetColumnsMessage message) {
+        List<Integer> missingColumns = new ArrayList<>();
+        for (int columnId : message.getColumnIds())
+            if (!this.columns.containsKey(columnId) && !this.requestedColumns.contains(columnId))
+                missingColumns.add(columnId);
+
+        if (!missingColumns.isEmpty()) {
+            this.requestedColumns.addAll(missingColumns);
+            message.getDependencyMiner().tell(new DependencyMiner.ColumnRequestMessage(this.largeMessageProxy, missingColumns));
+        }
+
+        if (!this.serve(message))
+            this.pendingRequests.add(message);
+        return this;
+    }
+
+    private Behavior<Message> handle(ColumnsMessage message) {
+        for (Map.Entry<Integer, int[]> column : message.getColumns().entrySet()) {
+            this.requestedColumns.remove(column.getKey());
+            if (!this.columns.containsKey(column.getKey()))
+                this.store(column.getKey(), column.getValue());
+        }
+
+        this.pendingRequests.removeIf(this::serve);
+        this.evict(this.capacity);
+        return this;
+    }
+
+    // Unpins the columns of a worker's task once the worker completed it or terminated, so that eviction may reuse their memory;
+    // a terminated worker's request may also still wait for its columns
+    private Behavior<Message> handle(ReleaseColumnsMessage message) {
+        this.servedColumns.remove(message.getDependencyWorker());
+        this.pendingRequests.removeIf(request -> request.getReplyTo().equals(message.getDependencyWorker()));
+        this.evict(this.capacity);
+        return this;
+    }
+
+    // Copies the column into the arena, evicting unused columns if it does not fit; columns that still do not fit stay on the heap
+    private void store(int columnId, int[] values) {
+        ColumnArena.Block block = this.arena.allocate(values);
+        while (block == null && this.evict(this.storedBytes - 1))
+            block = this.arena.allocate(values);
+        if (block == null)
+            block = ColumnArena.Block.onHeap(values);
+        this.columns.put(columnId, block);
+        this.storedBytes += block.sizeInBytes();
+    }
+
+    private boolean serve(GetColumnsMessage request) {
+        for (int columnId : request.getColumnIds())
+            if (!this.columns.containsKey(columnId))
+                return false;
+
+        Map<Integer, IntBuffer> columns = new HashMap<>();
+        for (int columnId : request.getColumnIds())
+            columns.put(columnId, this.columns.get(columnId).values());
+        this.servedColumns.put(request.getReplyTo(), request.getColumnIds());
+        request.getReplyTo().tell(new DependencyWorker.ColumnsMessage(columns));
+        return true;
+    }
+
+    // Drops least recently used columns until the store holds at most the given number of bytes and returns whether it dropped any;
+    // columns that pending requests wait for or that workers have not released yet stay
+    private boolean evict(long bytes) {
+        Set<Integer> pinnedColumns = new HashSet<>();
+        for (Collection<Integer> columnIds : this.servedColumns.values())
+            pinnedColumns.addAll(columnIds);
+        for (GetColumnsMessage request : this.pendingRequests)
+            pinnedColumns.addAll(request.getColumnIds());
+
+        boolean evicted = false;
+        Iterator<Map.Entry<Integer, ColumnArena.Block>> iterator = this.columns.entrySet().iterator();
+        while (this.storedBytes > bytes && iterator.hasNext()) {
+            Map.Entry<Integer, ColumnArena.Block> column = iterator.next();
+            if (pinnedColumns.contains(column.getKey()))
+                continue;
+            this.storedBytes -= column.getValue().sizeInBytes();
+            this.arena.release(column.getValue());
+            iterator.remove();
+            evicted = true;
+        }
+        return evicted;
+    }
+
+    ////////////////////
+    // Actor Behavior //
+    ////////////////////
+
+    public interface Message extends AkkaSerializable, LargeMessageProxy.LargeMessage {
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GetColumnsMessage implements Message {
+        private static final long serialVersionUID = 2209412468125871306L;
+        ActorRef<DependencyWorker.Message> replyTo;
+        ActorRef<DependencyMiner.Message> dependencyMiner;
+        Collection<Integer> columnIds;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ColumnsMessage implements Message {
+        private static final long serialVersionUID = -3562370914870716548L;
+        Map<Integer, int[]> columns;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReleaseColumnsMessage implements Message {
+        private static final long serialVersionUID = 5316044380671239405L;
+        ActorRef<DependencyWorker.Message> dependencyWorker;
+    }
+}
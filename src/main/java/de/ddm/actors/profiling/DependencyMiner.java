@@ -2,6 +2,7 @@ package de.ddm.actors.profiling;
 
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.PostStop;
 import akka.actor.typed.Terminated;
 import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
@@ -10,17 +11,30 @@ import akka.actor.typed.javadsl.Receive;
 import akka.actor.typed.receptionist.Receptionist;
 import akka.actor.typed.receptionist.ServiceKey;
 import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.configuration.ValidationStrategy;
 import de.ddm.serialization.AkkaSerializable;
+import de.ddm.singletons.DomainConfigurationSingleton;
 import de.ddm.singletons.InputConfigurationSingleton;
 import de.ddm.singletons.SystemConfigurationSingleton;
+import de.ddm.structures.AttributeCombinations;
+import de.ddm.structures.BloomFilter;
+import de.ddm.structures.Candidate;
+import de.ddm.structures.Column;
+import de.ddm.structures.ColumnStatistics;
+import de.ddm.structures.EncodedColumn;
 import de.ddm.structures.InclusionDependency;
-import de.ddm.structures.Pair;
+import de.ddm.structures.InclusionGraph;
+import de.ddm.structures.SpillableValueSet;
+import de.ddm.structures.ValueDictionary;
 import de.ddm.structures.WorkMessage;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
@@ -33,38 +47,69 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
     public static final ServiceKey<DependencyMiner.Message> dependencyMinerService = ServiceKey.create(DependencyMiner.Message.class, DEFAULT_NAME + "Service");
     private final Map<ActorRef<DependencyWorker.Message>, WorkMessage> busyWorkers = new HashMap<ActorRef<DependencyWorker.Message>, WorkMessage>();
     private final Queue<WorkMessage> unassignedWork = new LinkedList<>();
-    private final Queue<ActorRef> idleWorkers = new LinkedList<>();
+    private final Queue<ActorRef<DependencyWorker.Message>> idleWorkers = new LinkedList<>();
     private final File[] inputFiles;
     private final String[][] headerLines;
+    private final ColumnStatistics[][] statistics;
+    private final BloomFilter[][] filters;
     private final boolean discoverNaryDependencies;
     private final List<ActorRef<InputReader.Message>> inputReaders;
+    private final List<Integer> inputReaderFiles = new ArrayList<>();
     private final ActorRef<ResultCollector.Message> resultCollector;
     private final ActorRef<LargeMessageProxy.Message> largeMessageProxy;
-    private final List<ActorRef<DependencyWorker.Message>> dependencyWorkers;
-    private List<BatchMessage> batches;
-    private int firstFile = 0;
-    private int secondFile = 0;
+    private final Map<ActorRef<DependencyWorker.Message>, ActorRef<LargeMessageProxy.Message>> dependencyWorkers;
+    private final Map<ActorRef<DependencyWorker.Message>, ActorRef<ColumnStore.Message>> columnStores = new HashMap<>(); // The column store of each worker's node
+    private final List<List<SpillableValueSet>> attributeValueSets;
+    private Map<Integer, EncodedColumn> attributeValues;    // The dictionary-encoded values of the current level's attributes or attribute combinations
+    private final List<EncodedColumn> columns = new ArrayList<>();
+    private final long memoryBudget;
+    private long estimatedValueBytes = 0;
+    private File spillDirectory;                    // Created once the value sets first exceed the memory budget
+    private int exhaustedInputReaders = 0;
+    private int[] attributeFiles;
+    private int[] attributeColumns;
+    private Set<Candidate> candidates;
+    private final List<Candidate> validCandidates = new ArrayList<>();
+    private InclusionGraph inclusionGraph = new InclusionGraph();   // The current level's validated INDs and non-INDs
+    private int inferredCandidates = 0;
+    private AttributeCombinations combinations;
+    private List<List<Integer>> fileCombinations;   // The ids of the attribute combinations whose values the current level reads from each file
+    private int level = 1;
+    private boolean finished = false;
 
     ////////////////////////
     // Actor Construction //
     ////////////////////////
-    private int checkBound = 0;
     private long startTime;
 
     private DependencyMiner(ActorContext<Message> context) {
         super(context);
-        this.batches = new ArrayList<>();
         this.discoverNaryDependencies = SystemConfigurationSingleton.get().isHardMode();
         this.inputFiles = InputConfigurationSingleton.get().getInputFiles();
         this.headerLines = new String[this.inputFiles.length][];
+        this.statistics = new ColumnStatistics[this.inputFiles.length][];
+        this.filters = new BloomFilter[this.inputFiles.length][];
+        this.memoryBudget = SystemConfigurationSingleton.get().getMemoryBudget() * 1024L * 1024L;
+        this.attributeValueSets = new ArrayList<>(this.inputFiles.length);
+        for (int id = 0; id < this.inputFiles.length; id++)
+            this.attributeValueSets.add(new ArrayList<>());
 
+        // Large files are split into byte ranges that several readers parse in parallel; their batches merge per attribute
+        long splitSize = DomainConfigurationSingleton.get().getInputReaderSplitSize();
+        int maxRanges = Runtime.getRuntime().availableProcessors();
         this.inputReaders = new ArrayList<>(inputFiles.length);
-        for (int id = 0; id < this.inputFiles.length; id++)
-            this.inputReaders.add(context.spawn(InputReader.create(id, this.inputFiles[id]), InputReader.DEFAULT_NAME + "_" + id));
+        for (int id = 0; id < this.inputFiles.length; id++) {
+            long length = this.inputFiles[id].length();
+            int ranges = (int) Math.max(1, Math.min(maxRanges, (length + splitSize - 1) / splitSize));
+            for (int range = 0; range < ranges; range++) {
+                this.inputReaderFiles.add(id);
+                this.inputReaders.add(context.spawn(InputReader.create(id, this.inputReaders.size(), this.inputFiles[id], range, ranges), InputReader.DEFAULT_NAME + "_" + id + "_" + range));
+            }
+        }
         this.resultCollector = context.spawn(ResultCollector.create(), ResultCollector.DEFAULT_NAME);
         this.largeMessageProxy = this.getContext().spawn(LargeMessageProxy.create(this.getContext().getSelf().unsafeUpcast()), LargeMessageProxy.DEFAULT_NAME);
 
-        this.dependencyWorkers = new ArrayList<>();
+        this.dependencyWorkers = new HashMap<>();
 
         context.getSystem().receptionist().tell(Receptionist.register(dependencyMinerService, context.getSelf()));
     }
@@ -83,9 +128,12 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
                 .onMessage(StartMessage.class, this::handle)
                 .onMessage(BatchMessage.class, this::handle)
                 .onMessage(HeaderMessage.class, this::handle)
+                .onMessage(StatisticsMessage.class, this::handle)
                 .onMessage(RegistrationMessage.class, this::handle)
                 .onMessage(CompletionMessage.class, this::handle)
+                .onMessage(ColumnRequestMessage.class, this::handle)
                 .onSignal(Terminated.class, this::handle)
+                .onSignal(PostStop.class, this::handle)
                 .build();
     }
 
@@ -93,7 +141,7 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
         for (ActorRef<InputReader.Message> inputReader : this.inputReaders)
             inputReader.tell(new InputReader.ReadHeaderMessage(this.getContext().getSelf()));
         for (ActorRef<InputReader.Message> inputReader : this.inputReaders)
-            inputReader.tell(new InputReader.ReadBatchMessage(this.getContext().getSelf()));
+            inputReader.tell(new InputReader.ReadBatchMessage(this.getContext().getSelf(), DomainConfigurationSingleton.get().getInputReaderBatchCredits()));
         this.startTime = System.currentTimeMillis();
         return this;
     }
@@ -103,42 +151,245 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
         return this;
     }
 
-    private Behavior<Message> handle(BatchMessage message) {
-        batches.add(message);
+    private Behavior<Message> handle(StatisticsMessage message) {
+        if (this.statistics[message.getId()] == null) {
+            this.statistics[message.getId()] = message.getStatistics();
+            this.filters[message.getId()] = message.getFilters();
+            return this;
+        }
+        for (int col = 0; col < message.getStatistics().length; col++) {
+            this.statistics[message.getId()][col].merge(message.getStatistics()[col]);
+            this.filters[message.getId()][col].merge(message.getFilters()[col]);
+        }
+        return this;
+    }
+
+    private Behavior<Message> handle(BatchMessage message) throws IOException {
+        List<SpillableValueSet> columns = this.attributeValueSets.get(message.getId());
+        String[][] batchColumns = message.getColumns();
+        while (columns.size() < batchColumns.length)
+            columns.add(new SpillableValueSet());
+        for (int col = 0; col < batchColumns.length; col++)
+            this.estimatedValueBytes += columns.get(col).addAll(batchColumns[col]) + columns.get(col).addAll(message.getNumbers()[col]);
+        if (this.estimatedValueBytes > this.memoryBudget)
+            this.spillValueSets();
+
+        if (message.isLastBatch())
+            this.exhaustedInputReaders++;
+        else
+            this.inputReaders.get(message.getReader()).tell(new InputReader.ReadBatchMessage(this.getContext().getSelf(), 1));
+
+        if (this.isInputRead()) {
+            if (this.level == 1) {
+                this.indexAttributes();
+                this.generateCandidates();
+            } else {
+                this.indexCombinations();
+            }
+            if (this.isPartitioned())
+                this.createPartitionWork();
+            else
+                this.createCandidateWork();
+
+            List<ActorRef<DependencyWorker.Message>> waitingWorkers = new ArrayList<>(this.idleWorkers);
+            this.idleWorkers.clear();
+            for (ActorRef<DependencyWorker.Message> dependencyWorker : waitingWorkers)
+                sendMessage(dependencyWorker);
+
+            if (isFinished())
+                this.finishLevel();
+        }
 
         return this;
     }
 
+    // Spills the largest value sets until they occupy at most half of the memory budget, so that spilling does not repeat with every batch
+    private void spillValueSets() throws IOException {
+        if (this.spillDirectory == null)
+            this.spillDirectory = Files.createTempDirectory(Paths.get(SystemConfigurationSingleton.get().getSpillDirectory()), "ddm-spill").toFile();
+
+        List<SpillableValueSet> valueSets = new ArrayList<>();
+        for (List<SpillableValueSet> columns : this.attributeValueSets)
+            valueSets.addAll(columns);
+        valueSets.sort(Comparator.comparingLong(SpillableValueSet::getEstimatedBytes).reversed());
+
+        int spilled = 0;
+        for (SpillableValueSet valueSet : valueSets) {
+            if (this.estimatedValueBytes <= this.memoryBudget / 2)
+                break;
+            this.estimatedValueBytes -= valueSet.spill(this.spillDirectory);
+            spilled++;
+        }
+        this.getContext().getLog().info("Spilled {} attribute value sets to {}", spilled, this.spillDirectory);
+    }
+
+    private boolean isInputRead() {
+        return this.exhaustedInputReaders == this.inputReaders.size();
+    }
+
+    private void indexAttributes() throws IOException {
+        int numAttributes = 0;
+        for (String[] header : this.headerLines)
+            numAttributes += header.length;
+
+        this.attributeFiles = new int[numAttributes];
+        this.attributeColumns = new int[numAttributes];
+        Map<Integer, Column> attributeValues = new TreeMap<>();
+        for (int id = 0, attribute = 0; id < this.inputFiles.length; id++) {
+            List<SpillableValueSet> columns = this.attributeValueSets.get(id);
+            for (int col = 0; col < this.headerLines[id].length; col++, attribute++) {
+                this.attributeFiles[attribute] = id;
+                this.attributeColumns[attribute] = col;
+                attributeValues.put(attribute, col < columns.size() ? columns.get(col).finish(this.spillDirectory) : new Column(new String[0]));
+                this.statistics[id][col].setDistinctCount(attributeValues.get(attribute).size());
+                this.statistics[id][col].setNumberCount(attributeValues.get(attribute).numberCount());
+            }
+            columns.clear();
+        }
+        this.estimatedValueBytes = 0;
+        this.attributeValues = ValueDictionary.encode(attributeValues, this.spillDirectory);
+        this.combinations = new AttributeCombinations(this.attributeFiles);
+    }
+
+    // Finishes the combined values read for the current level and drops candidates whose dependent side has more distinct value combinations
+    private void indexCombinations() throws IOException {
+        Map<Integer, Column> attributeValues = new TreeMap<>();
+        for (int id = 0; id < this.inputFiles.length; id++) {
+            List<SpillableValueSet> columns = this.attributeValueSets.get(id);
+            List<Integer> combinationIds = this.fileCombinations.get(id);
+            for (int i = 0; i < combinationIds.size(); i++)
+                attributeValues.put(combinationIds.get(i), i < columns.size() ? columns.get(i).finish(this.spillDirectory) : new Column(new String[0]));
+            columns.clear();
+        }
+        this.estimatedValueBytes = 0;
+        this.attributeValues = ValueDictionary.encode(attributeValues, this.spillDirectory);
+
+        int numCandidates = this.candidates.size();
+        this.candidates.removeIf(candidate -> this.attributeValues.get(candidate.getDependent()).size() > this.attributeValues.get(candidate.getReferenced()).size());
+        this.getContext().getLog().info("Level {}: pruned {} of {} candidates by distinct value counts", this.level, numCandidates - this.candidates.size(), numCandidates);
+    }
+
+    private void generateCandidates() {
+        int numAttributes = this.attributeFiles.length;
+        int pruned = 0, refuted = 0;
+        this.candidates = new HashSet<>();
+        for (int dependent = 0; dependent < numAttributes; dependent++) {
+            for (int referenced = 0; referenced < numAttributes; referenced++) {
+                if (dependent == referenced)
+                    continue;
+                if (!ColumnStatistics.mayBeIncluded(this.statisticsOf(dependent), this.statisticsOf(referenced)))
+                    pruned++;
+                else if (!this.filterOf(referenced).mightContainAll(this.filterOf(dependent)))
+                    refuted++;
+                else
+                    this.candidates.add(new Candidate(dependent, referenced));
+            }
+        }
+        this.getContext().getLog().info("Generated {} candidates; pruned {} candidates by column statistics and refuted {} candidates by Bloom filters", this.candidates.size(), pruned, refuted);
+    }
+
+    private ColumnStatistics statisticsOf(int attribute) {
+        return this.statistics[this.attributeFiles[attribute]][this.attributeColumns[attribute]];
+    }
+
+    private BloomFilter filterOf(int attribute) {
+        return this.filters[this.attributeFiles[attribute]][this.attributeColumns[attribute]];
+    }
+
+    // Groups the candidates by their referenced attribute so that each task ships the referenced values only once
+    private void createCandidateWork() {
+        Map<Integer, List<Candidate>> candidatesByReferenced = new TreeMap<>();
+        for (Candidate candidate : this.candidates)
+            candidatesByReferenced.computeIfAbsent(candidate.getReferenced(), referenced -> new ArrayList<>()).add(candidate);
+
+        Map<Integer, Integer> columnIds = new HashMap<>();
+        for (Map.Entry<Integer, EncodedColumn> attributeValues : this.attributeValues.entrySet()) {
+            columnIds.put(attributeValues.getKey(), this.columns.size());
+            this.columns.add(attributeValues.getValue());
+        }
+        this.attributeValues = null;
+
+        int maxCandidates = DomainConfigurationSingleton.get().getMaxCandidatesPerTask();
+        for (List<Candidate> group : candidatesByReferenced.values()) {
+            for (int from = 0; from < group.size(); from += maxCandidates) {
+                List<Candidate> taskCandidates = new ArrayList<>(group.subList(from, Math.min(from + maxCandidates, group.size())));
+                Map<Integer, Integer> taskColumns = new HashMap<>();
+                for (Candidate candidate : taskCandidates) {
+                    taskColumns.put(candidate.getDependent(), columnIds.get(candidate.getDependent()));
+                    taskColumns.put(candidate.getReferenced(), columnIds.get(candidate.getReferenced()));
+                }
+                this.unassignedWork.add(new WorkMessage(taskCandidates, taskColumns, null));
+            }
+        }
+        this.getContext().getLog().info("Created {} tasks", this.unassignedWork.size());
+    }
+
+    private void createPartitionWork() throws IOException {
+        int numPartitions = DomainConfigurationSingleton.get().getValuePartitions();
+        List<Map<Integer, Integer>> partitions = new ArrayList<>(numPartitions);
+        for (int partition = 0; partition < numPartitions; partition++)
+            partitions.add(new HashMap<>());
+
+        for (Map.Entry<Integer, EncodedColumn> attributeValues : this.attributeValues.entrySet()) {
+            List<EncodedColumn> buckets = attributeValues.getValue().partition(this.spillDirectory, numPartitions);
+            attributeValues.getValue().delete();
+            for (int partition = 0; partition < numPartitions; partition++) {
+                partitions.get(partition).put(attributeValues.getKey(), this.columns.size());
+                this.columns.add(buckets.get(partition));
+            }
+        }
+        this.attributeValues = null;
+
+        for (Map<Integer, Integer> partitionColumns : partitions)
+            this.unassignedWork.add(new WorkMessage(new ArrayList<>(this.candidates), partitionColumns, null).restrictTo(this.candidates));
+    }
+
+    private boolean isPartitioned() {
+        ValidationStrategy validationStrategy = SystemConfigurationSingleton.get().getValidationStrategy();
+        return validationStrategy == ValidationStrategy.HASH_PARTITIONED || validationStrategy == ValidationStrategy.INVERTED_INDEX;
+    }
+
     private Behavior<Message> handle(RegistrationMessage message) {
         ActorRef<DependencyWorker.Message> dependencyWorker = message.getDependencyWorker();
-        if (this.busyWorkers.containsKey(dependencyWorker) || this.idleWorkers.contains(dependencyWorker))
+        if (this.dependencyWorkers.containsKey(dependencyWorker))
             return this;
+        this.dependencyWorkers.put(dependencyWorker, message.getDependencyWorkerLargeMessageProxy());
+        this.columnStores.put(dependencyWorker, message.getColumnStore());
         this.getContext().watch(dependencyWorker);
         sendMessage(dependencyWorker);
         return this;
     }
 
     private void sendMessage(ActorRef<DependencyWorker.Message> dependencyWorker) {
-        if (batches.size() != inputReaders.size()) {
-            checkBound++;
-            dependencyWorker.tell(new DependencyWorker.IdleMessage(this.largeMessageProxy));
-        }
-        if (firstFile >= inputReaders.size() && checkBound != 0) {
+        WorkMessage work = this.isInputRead() ? this.nextWork() : null;
+        if (work == null) {
+            this.idleWorkers.add(dependencyWorker);
             return;
-        } else if (isFinished()) {
-            end();
-        } else {
-            BatchMessage batch1 = batches.get(firstFile);
-            BatchMessage batch2 = batches.get(secondFile);
-            secondFile++;
-            if (secondFile >= batches.size()) {
-                firstFile++;
-                secondFile = firstFile;
-            }
-            checkBound++;
-            dependencyWorker.tell(new DependencyWorker.TaskMessage(this.largeMessageProxy, new WorkMessage(batch1.getBatch(), batch1.getId(), headerLines[batch1.getId()]), new WorkMessage(batch2.getBatch(), batch2.getId(), headerLines[batch2.getId()])));
         }
 
+        this.busyWorkers.put(dependencyWorker, work);
+        DependencyWorker.TaskMessage task = new DependencyWorker.TaskMessage(this.largeMessageProxy, this.getContext().getSelf(), work, SystemConfigurationSingleton.get().getValidationStrategy());
+        this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(task, this.dependencyWorkers.get(dependencyWorker), LargeMessageProxy.Lane.HIGH));
+    }
+
+    // Ships the requested columns to a node's column store, which keeps them for all tasks of that node; spilled columns are only read now
+    private Behavior<Message> handle(ColumnRequestMessage message) throws IOException {
+        Map<Integer, int[]> columns = new HashMap<>();
+        for (int columnId : message.getColumnIds())
+            columns.put(columnId, this.columns.get(columnId).ids());
+        this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(new ColumnStore.ColumnsMessage(columns), message.getColumnStoreLargeMessageProxy(), LargeMessageProxy.Lane.BULK));
+        return this;
+    }
+
+    private WorkMessage nextWork() {
+        WorkMessage work;
+        while ((work = this.unassignedWork.poll()) != null) {
+            // Tasks that were queued before some of their candidates got refuted or inferred must not ship those candidates anymore
+            work = work.restrictTo(this.candidates);
+            if (!work.getCandidates().isEmpty())
+                return work;
+        }
+        return null;
     }
 
     ////////////////////
@@ -146,43 +397,137 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
     ////////////////////
 
     private boolean isFinished() {
-        return firstFile >= inputReaders.size();
+        return this.isInputRead() && this.unassignedWork.isEmpty() && this.busyWorkers.isEmpty();
+    }
+
+    private InclusionDependency toInclusionDependency(Candidate candidate) {
+        File dependentFile = this.inputFiles[this.combinations.fileOf(candidate.getDependent())];
+        File referencedFile = this.inputFiles[this.combinations.fileOf(candidate.getReferenced())];
+        return new InclusionDependency(dependentFile, this.namesOf(candidate.getDependent()), referencedFile, this.namesOf(candidate.getReferenced()));
+    }
+
+    private String[] namesOf(int combination) {
+        int[] attributes = this.combinations.get(combination);
+        String[] names = new String[attributes.length];
+        for (int i = 0; i < attributes.length; i++)
+            names[i] = this.headerLines[this.attributeFiles[attributes[i]]][this.attributeColumns[attributes[i]]];
+        return names;
     }
 
     private Behavior<Message> handle(CompletionMessage message) {
         ActorRef<DependencyWorker.Message> dependencyWorker = message.getDependencyWorker();
-        checkBound--;
-        if (null != message.getDep()) {
-            if (message.getDep().size() != 0 && this.headerLines[0] != null) {
-                for (Pair dep : message.getDep()) {
-                    int dependent = dep.getTableDependentId();
-                    int referenced = dep.getTableIndId();
-                    File dependentFile = this.inputFiles[dependent];
-                    File referencedFile = this.inputFiles[referenced];
-                    String[] dependentAttributes = {dep.getDependent()};
-                    String[] referencedAttributes = {dep.getReferencedId()};
-
-                    InclusionDependency ind = new InclusionDependency(dependentFile, dependentAttributes, referencedFile, referencedAttributes);
-                    List<InclusionDependency> inds = new ArrayList<>(1);
-                    inds.add(ind);
-
-                    this.resultCollector.tell(new ResultCollector.ResultMessage(inds));
-                }
+        // A completion can arrive after the worker's Terminated signal, which already requeued its task
+        if (!this.dependencyWorkers.containsKey(dependencyWorker))
+            return this;
+        WorkMessage work = this.busyWorkers.remove(dependencyWorker);
+
+        if (work != null && this.isPartitioned()) {
+            // A candidate that does not hold on one partition does not hold at all
+            List<Candidate> refuted = new ArrayList<>(work.getCandidates());
+            refuted.removeAll(message.getDep());
+            this.candidates.removeAll(refuted);
+            this.getContext().getLog().info("Completed partition; {} candidates remain", this.candidates.size());
+        } else if (work != null) {
+            // The task's results may decide further candidates by transitivity; candidates that another task already decided are skipped
+            Set<Candidate> validated = new HashSet<>(work.getCandidates());
+            List<Candidate> refuted = new ArrayList<>(work.getCandidates());
+            refuted.removeAll(message.getDep());
+            this.inclusionGraph.add(message.getDep(), refuted);
+
+            List<InclusionDependency> inds = new ArrayList<>(message.getDep().size());
+            for (Candidate candidate : this.inclusionGraph.pollValid()) {
+                if (!this.candidates.remove(candidate))
+                    continue;
+                inds.add(this.toInclusionDependency(candidate));
+                this.validCandidates.add(candidate);
+                if (!validated.contains(candidate))
+                    this.inferredCandidates++;
             }
-
+            for (Candidate candidate : this.inclusionGraph.pollInvalid())
+                if (this.candidates.remove(candidate) && !validated.contains(candidate))
+                    this.inferredCandidates++;
+            if (!inds.isEmpty())
+                this.resultCollector.tell(new ResultCollector.ResultMessage(inds));
         }
 
-        this.getContext().getLog().info("Completed work for task {}");
-
         sendMessage(dependencyWorker);
 
         if (isFinished())
-            end();
+            this.finishLevel();
 
         return this;
     }
 
+    // In hard mode, the valid INDs of a level seed the candidates of the next level until no candidates are left
+    private void finishLevel() {
+        if (this.isPartitioned()) {
+            List<InclusionDependency> inds = new ArrayList<>(this.candidates.size());
+            for (Candidate candidate : this.candidates)
+                inds.add(this.toInclusionDependency(candidate));
+            this.resultCollector.tell(new ResultCollector.ResultMessage(inds));
+            this.validCandidates.addAll(this.candidates);
+        } else {
+            this.getContext().getLog().info("Level {}: decided {} candidates by transitivity without validating them", this.level, this.inferredCandidates);
+        }
+        this.inclusionGraph = new InclusionGraph();
+        this.inferredCandidates = 0;
+
+        // No task of a later level refers to the columns of this level anymore
+        for (EncodedColumn column : this.columns)
+            if (column != null)
+                column.delete();
+        Collections.fill(this.columns, null);
+
+        Set<Candidate> nextCandidates = this.discoverNaryDependencies ? this.combinations.nextLevel(this.validCandidates) : Collections.emptySet();
+        this.validCandidates.clear();
+        if (nextCandidates.isEmpty()) {
+            this.end();
+            return;
+        }
+
+        this.level++;
+        this.candidates = nextCandidates;
+        this.readCombinations();
+    }
+
+    // Lets the readers of every file that the candidates refer to reread their ranges for the values of the candidates' attribute combinations
+    private void readCombinations() {
+        this.fileCombinations = new ArrayList<>(this.inputFiles.length);
+        for (int id = 0; id < this.inputFiles.length; id++)
+            this.fileCombinations.add(new ArrayList<>());
+        Set<Integer> combinationIds = new TreeSet<>();
+        for (Candidate candidate : this.candidates) {
+            combinationIds.add(candidate.getDependent());
+            combinationIds.add(candidate.getReferenced());
+        }
+        for (int combinationId : combinationIds)
+            this.fileCombinations.get(this.combinations.fileOf(combinationId)).add(combinationId);
+
+        this.exhaustedInputReaders = 0;
+        for (int reader = 0; reader < this.inputReaders.size(); reader++) {
+            List<Integer> readerCombinations = this.fileCombinations.get(this.inputReaderFiles.get(reader));
+            if (readerCombinations.isEmpty()) {
+                this.exhaustedInputReaders++;
+                continue;
+            }
+            int[][] columns = new int[readerCombinations.size()][];
+            for (int i = 0; i < columns.length; i++) {
+                int[] attributes = this.combinations.get(readerCombinations.get(i));
+                columns[i] = new int[attributes.length];
+                for (int j = 0; j < attributes.length; j++)
+                    columns[i][j] = this.attributeColumns[attributes[j]];
+            }
+            this.inputReaders.get(reader).tell(new InputReader.ReadCombinationsMessage(columns));
+            this.inputReaders.get(reader).tell(new InputReader.ReadBatchMessage(this.getContext().getSelf(), DomainConfigurationSingleton.get().getInputReaderBatchCredits()));
+        }
+        this.getContext().getLog().info("Level {}: generated {} candidates over {} attribute combinations", this.level, this.candidates.size(), combinationIds.size());
+    }
+
     private void end() {
+        if (this.finished)
+            return;
+        this.finished = true;
+
         this.resultCollector.tell(new ResultCollector.FinalizeMessage());
         long discoveryTime = System.currentTimeMillis() - this.startTime;
         this.getContext().getLog().info("Finished mining within {} ms!", discoveryTime);
@@ -191,6 +536,29 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
     private Behavior<Message> handle(Terminated signal) {
         ActorRef<DependencyWorker.Message> dependencyWorker = signal.getRef().unsafeUpcast();
         this.dependencyWorkers.remove(dependencyWorker);
+        this.idleWorkers.remove(dependencyWorker);
+        // The worker cannot release the columns that its node's column store pinned for its task anymore
+        ActorRef<ColumnStore.Message> columnStore = this.columnStores.remove(dependencyWorker);
+        if (columnStore != null)
+            columnStore.tell(new ColumnStore.ReleaseColumnsMessage(dependencyWorker));
+        WorkMessage work = this.busyWorkers.remove(dependencyWorker);
+        if (work != null) {
+            this.unassignedWork.add(work);
+            ActorRef<DependencyWorker.Message> idleWorker = this.idleWorkers.poll();
+            if (idleWorker != null)
+                sendMessage(idleWorker);
+        }
+        return this;
+    }
+
+    private Behavior<Message> handle(PostStop signal) {
+        if (this.spillDirectory != null) {
+            File[] files = this.spillDirectory.listFiles();
+            if (files != null)
+                for (File file : files)
+                    file.delete();
+            this.spillDirectory.delete();
+        }
         return this;
     }
 
@@ -211,13 +579,26 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
         String[] header;
     }
 
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatisticsMessage implements Message {
+        private static final long serialVersionUID = 3370236917146120436L;
+        int id;
+        ColumnStatistics[] statistics;
+        BloomFilter[] filters;
+    }
+
     @Getter
     @NoArgsConstructor
     @AllArgsConstructor
     public static class BatchMessage implements Message {
         private static final long serialVersionUID = 4591192372652568030L;
         int id;
-        List<String[]> batch;
+        int reader;
+        String[][] columns;
+        long[][] numbers;                   // The values of each column that are integers or dates, which the columns omit
+        boolean lastBatch;
     }
 
     @Getter
@@ -226,6 +607,8 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
     public static class RegistrationMessage implements Message {
         private static final long serialVersionUID = -4025238529984914107L;
         ActorRef<DependencyWorker.Message> dependencyWorker;
+        ActorRef<LargeMessageProxy.Message> dependencyWorkerLargeMessageProxy;
+        ActorRef<ColumnStore.Message> columnStore;
     }
 
     @Getter
@@ -234,8 +617,17 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
     public static class CompletionMessage implements Message {
         private static final long serialVersionUID = -7642425159675583598L;
         ActorRef<DependencyWorker.Message> dependencyWorker;
-        List<Pair> dep;
+        List<Candidate> dep;
+
 
+    }
 
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ColumnRequestMessage implements Message {
+        private static final long serialVersionUID = 5094361283779265124L;
+        ActorRef<LargeMessageProxy.Message> columnStoreLargeMessageProxy;
+        List<Integer> columnIds;
     }
-}
\ No newline at end of file
+}
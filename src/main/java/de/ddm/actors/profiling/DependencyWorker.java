@@ -8,18 +8,19 @@ import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
 import akka.actor.typed.receptionist.Receptionist;
 import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.configuration.ValidationStrategy;
 import de.ddm.serialization.AkkaSerializable;
-import de.ddm.structures.Pair;
+import de.ddm.structures.Candidate;
 import de.ddm.structures.WorkMessage;
+import de.ddm.validation.HashValidator;
+import de.ddm.validation.InvertedIndexValidator;
+import de.ddm.validation.SortedMergeValidator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.nio.IntBuffer;
+import java.util.*;
 
 public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message> {
     public static final String DEFAULT_NAME = "dependencyWorker";
@@ -27,9 +28,13 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
     // Actor Messages //
     ////////////////////
     private final ActorRef<LargeMessageProxy.Message> largeMessageProxy;
+    private final ActorRef<ColumnStore.Message> columnStore;
+    private final HashValidator hashValidator = new HashValidator();
+    private TaskMessage pendingTask;
 
-    private DependencyWorker(ActorContext<Message> context) {
+    private DependencyWorker(ActorContext<Message> context, ActorRef<ColumnStore.Message> columnStore) {
         super(context);
+        this.columnStore = columnStore;
 
         final ActorRef<Receptionist.Listing> listingResponseAdapter = context.messageAdapter(Receptionist.Listing.class, ReceptionistListingMessage::new);
         context.getSystem().receptionist().tell(Receptionist.subscribe(DependencyMiner.dependencyMinerService, listingResponseAdapter));
@@ -37,34 +42,8 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
         this.largeMessageProxy = this.getContext().spawn(LargeMessageProxy.create(this.getContext().getSelf().unsafeUpcast()), LargeMessageProxy.DEFAULT_NAME);
     }
 
-    public static Behavior<Message> create() {
-        return Behaviors.setup(DependencyWorker::new);
-    }
-
-    static ArrayList<Pair> inclusionDependencies(WorkMessage dependent, WorkMessage referenced) {
-        ArrayList<Pair> ans = new ArrayList<>();
-        for (int colInd = 0; colInd < referenced.columns(); colInd++) {
-            Set<String> indVals = new HashSet<>();
-            for (int i = 0; i < referenced.rows(); i++) {
-                indVals.add(referenced.elem(i, colInd));
-            }
-            int len = indVals.size();
-            for (int colDep = 0; colDep < dependent.columns(); colDep++) {
-                boolean depends = true;
-                for (int i = 0; i < dependent.rows(); i++) {
-                    String cur = dependent.elem(i, colDep);
-                    indVals.add(cur);
-                    if (indVals.size() > len) {
-                        indVals.remove(cur);
-                        depends = false;
-                    }
-                }
-                if (depends) {
-                    ans.add(new Pair(dependent.getId(), referenced.getId(), dependent.col(colDep), referenced.col(colInd)));
-                }
-            }
-        }
-        return ans;
+    public static Behavior<Message> create(ActorRef<ColumnStore.Message> columnStore) {
+        return Behaviors.setup(context -> new DependencyWorker(context, columnStore));
     }
 
     ////////////////////////
@@ -76,25 +55,14 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
         return newReceiveBuilder()
                 .onMessage(ReceptionistListingMessage.class, this::handle)
                 .onMessage(TaskMessage.class, this::handle)
-                .onMessage(IdleMessage.class, this::handle)
+                .onMessage(ColumnsMessage.class, this::handle)
                 .build();
     }
 
-    private Behavior<Message> handle(IdleMessage idleMessage) {
-        try {
-            TimeUnit.SECONDS.sleep(1);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-        LargeMessageProxy.LargeMessage completionMessage = new DependencyMiner.CompletionMessage(this.getContext().getSelf(), new ArrayList<>());
-        this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(completionMessage, idleMessage.getDependencyMinerLargeMessageProxy()));
-        return this;
-    }
-
     private Behavior<Message> handle(ReceptionistListingMessage message) {
         Set<ActorRef<DependencyMiner.Message>> dependencyMiners = message.getListing().getServiceInstances(DependencyMiner.dependencyMinerService);
         for (ActorRef<DependencyMiner.Message> dependencyMiner : dependencyMiners)
-            dependencyMiner.tell(new DependencyMiner.RegistrationMessage(this.getContext().getSelf()));
+            dependencyMiner.tell(new DependencyMiner.RegistrationMessage(this.getContext().getSelf(), this.largeMessageProxy, this.columnStore));
         return this;
     }
 
@@ -102,11 +70,36 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
     // Actor State //
     /////////////////
 
+    // Tasks only reference their columns; the node's column store resolves them, fetching from the miner only on a miss
     private Behavior<Message> handle(TaskMessage message) {
-        this.getContext().getLog().info("Working!");
-        List<Pair> deps = inclusionDependencies(message.getTask1(), message.getTask2());
+        this.pendingTask = message;
+        Set<Integer> columnIds = new HashSet<>(message.getWork().getAttributeColumns().values());
+        this.columnStore.tell(new ColumnStore.GetColumnsMessage(this.getContext().getSelf(), message.getDependencyMiner(), columnIds));
+        return this;
+    }
+
+    private Behavior<Message> handle(ColumnsMessage message) {
+        TaskMessage task = this.pendingTask;
+        this.pendingTask = null;
+        WorkMessage work = task.getWork().withValues(message.getColumns());
+
+        this.getContext().getLog().info("Validating {} candidates!", work.getCandidates().size());
+        List<Candidate> deps;
+        switch (task.getValidationStrategy()) {
+            case SORTED_MERGE:
+                deps = SortedMergeValidator.inclusionDependencies(work);
+                break;
+            case INVERTED_INDEX:
+                deps = InvertedIndexValidator.inclusionDependencies(work);
+                break;
+            case HASH:
+            case HASH_PARTITIONED:
+            default:
+                deps = this.hashValidator.inclusionDependencies(work);
+        }
         LargeMessageProxy.LargeMessage completionMessage = new DependencyMiner.CompletionMessage(this.getContext().getSelf(), deps);
-        this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(completionMessage, message.getDependencyMinerLargeMessageProxy()));
+        this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(completionMessage, task.getDependencyMinerLargeMessageProxy(), LargeMessageProxy.Lane.HIGH));
+        this.columnStore.tell(new ColumnStore.ReleaseColumnsMessage(this.getContext().getSelf()));
         return this;
     }
 
@@ -131,24 +124,19 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
     @Getter
     @NoArgsConstructor
     @AllArgsConstructor
-    public static class IdleMessage implements Message {
-        private static final long serialVersionUID = -5246338806092216222L;
+    public static class TaskMessage implements Message, DependencyWorkerMessage {
+        private static final long serialVersionUID = -4667745204456518160L;
         ActorRef<LargeMessageProxy.Message> dependencyMinerLargeMessageProxy;
+        ActorRef<DependencyMiner.Message> dependencyMiner;
+        private WorkMessage work;
+        private ValidationStrategy validationStrategy;
     }
 
     @Getter
     @NoArgsConstructor
     @AllArgsConstructor
-    public static class TaskMessage implements Message {
-        private static final long serialVersionUID = -4667745204456518160L;
-        ActorRef<LargeMessageProxy.Message> dependencyMinerLargeMessageProxy;
-        private WorkMessage task1;
-        private WorkMessage task2;
-
-        public TaskMessage(WorkMessage task1, WorkMessage task2, int id1, int id2) {
-            this.task1 = task1;
-            this.task2 = task2;
-
-        }
+    public static class ColumnsMessage implements Message {
+        private static final long serialVersionUID = 6813520986917460231L;
+        Map<Integer, IntBuffer> columns;     // Views of the column store's memory, which must not be read after releasing the columns
     }
 }
@@ -7,11 +7,14 @@ import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
+import de.ddm.input.CsvParser;
+import de.ddm.input.DistinctValues;
 import de.ddm.serialization.AkkaSerializable;
 import de.ddm.singletons.DomainConfigurationSingleton;
 import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.structures.BloomFilter;
+import de.ddm.structures.ColumnStatistics;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -19,7 +22,10 @@ import lombok.NoArgsConstructor;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class InputReader extends AbstractBehavior<InputReader.Message> {
 
@@ -29,30 +35,61 @@ public class InputReader extends AbstractBehavior<InputReader.Message> {
 
     public static final String DEFAULT_NAME = "inputReader";
     private final int id;
+    private final int reader;
+    private final File inputFile;
+    private final long start;
+    private final long end;
     private final int batchSize = DomainConfigurationSingleton.get().getInputReaderBatchSize();
 
     ////////////////////////
     // Actor Construction //
     ////////////////////////
-    private final CSVReader reader;
+    private CsvParser parser;
     private final String[] header;
-
-    private InputReader(ActorContext<Message> context, final int id, final File inputFile) throws IOException, CsvValidationException {
+    private final ColumnStatistics[] statistics;
+    private final BloomFilter[] filters;
+    private final DistinctValues[] columns;
+    private final LongOpenHashSet[] numbers;        // The distinct values of a batch that CsvParser.number() reads as longs
+    private int[][] combinations;                   // The column lists whose combined values are read instead of single columns, if any
+    private List<Set<String>> combinationValues;
+    private int credits = 0;
+    private boolean exhausted = false;
+
+    private InputReader(ActorContext<Message> context, final int id, final int reader, final File inputFile, final int range, final int ranges) throws IOException {
         super(context);
         this.id = id;
-        this.reader = InputConfigurationSingleton.get().createCSVReader(inputFile);
+        this.reader = reader;
+        this.inputFile = inputFile;
         this.header = InputConfigurationSingleton.get().getHeader(inputFile);
+        this.start = InputConfigurationSingleton.get().getRangeStart(inputFile, range, ranges, this.header.length);
+        this.end = range == ranges - 1 ? Long.MAX_VALUE : InputConfigurationSingleton.get().getRangeStart(inputFile, range + 1, ranges, this.header.length);
+        this.statistics = new ColumnStatistics[this.header.length];
+        this.filters = new BloomFilter[this.header.length];
+        this.columns = new DistinctValues[this.header.length];
+        this.numbers = new LongOpenHashSet[this.header.length];
+        for (int col = 0; col < this.header.length; col++) {
+            this.statistics[col] = new ColumnStatistics();
+            this.filters[col] = new BloomFilter(DomainConfigurationSingleton.get().getBloomFilterSize());
+            this.columns[col] = new DistinctValues();
+            this.numbers[col] = new LongOpenHashSet();
+        }
+        this.open();
+    }
 
-        if (InputConfigurationSingleton.get().isFileHasHeader())
-            this.reader.readNext();
+    private void open() throws IOException {
+        this.parser = InputConfigurationSingleton.get().createCsvParser(this.inputFile, this.start);
+        if (InputConfigurationSingleton.get().isFileHasHeader() && this.start == 0)
+            this.parser.next();
     }
 
     /////////////////
     // Actor State //
     /////////////////
 
-    public static Behavior<Message> create(final int id, final File inputFile) {
-        return Behaviors.setup(context -> new InputReader(context, id, inputFile));
+    // Reads the records of the input file that begin within the given one of its byte ranges of about equal size; the reader aligns
+    // the range to record starts itself, so that the readers of a file do not wait for each other
+    public static Behavior<Message> create(final int id, final int reader, final File inputFile, final int range, final int ranges) {
+        return Behaviors.setup(context -> new InputReader(context, id, reader, inputFile, range, ranges));
     }
 
     @Override
@@ -60,6 +97,7 @@ public class InputReader extends AbstractBehavior<InputReader.Message> {
         return newReceiveBuilder()
                 .onMessage(ReadHeaderMessage.class, this::handle)
                 .onMessage(ReadBatchMessage.class, this::handle)
+                .onMessage(ReadCombinationsMessage.class, this::handle)
                 .onSignal(PostStop.class, this::handle)
                 .build();
     }
@@ -69,25 +107,116 @@ public class InputReader extends AbstractBehavior<InputReader.Message> {
         return this;
     }
 
-    private Behavior<Message> handle(ReadBatchMessage message) throws IOException, CsvValidationException {
-        List<String[]> batch = new ArrayList<>(this.batchSize);
-        for (int i = 0; i < this.batchSize; i++) {
-            String[] line = this.reader.readNext();
-            if (line == null)
-                break;
-            batch.add(line);
+    private Behavior<Message> handle(ReadBatchMessage message) throws IOException {
+        this.credits += message.getCredits();
+
+        while (this.credits > 0 && !this.exhausted) {
+            for (int i = 0; i < this.batchSize; i++) {
+                if (this.parser.getPosition() >= this.end || !this.parser.next()) {
+                    this.exhausted = true;
+                    break;
+                }
+                if (this.combinations != null)
+                    this.readCombinations();
+                else
+                    for (int col = 0; col < Math.min(this.parser.size(), this.header.length); col++)
+                        this.read(col);
+            }
+
+            this.credits--;
+            if (this.exhausted && this.combinations == null)
+                message.getReplyTo().tell(new DependencyMiner.StatisticsMessage(this.id, this.statistics, this.filters));
+            message.getReplyTo().tell(new DependencyMiner.BatchMessage(this.id, this.reader, this.toArrays(), this.toNumberArrays(), this.exhausted));
+        }
+        return this;
+    }
+
+    // Statistics and filters only need to see each distinct value of a batch once, except for the null count
+    private void read(int col) {
+        if (this.parser.isNull(col)) {
+            this.statistics[col].update(null);
+            if (this.columns[col].addNull())
+                this.filters[col].add(null);
+            return;
+        }
+        long number = this.parser.number(col);
+        String value;
+        if (number != CsvParser.NOT_A_NUMBER)
+            value = this.numbers[col].add(number) ? this.parser.get(col) : null;
+        else
+            value = this.columns[col].add(this.parser, col);
+        if (value != null) {
+            this.statistics[col].update(value);
+            this.filters[col].add(value);
         }
+    }
 
-        message.getReplyTo().tell(new DependencyMiner.BatchMessage(this.id, batch));
+    // Rereads the range for the combined values of the given column lists, which the following batches then carry in this order
+    private Behavior<Message> handle(ReadCombinationsMessage message) throws IOException {
+        this.parser.close();
+        this.open();
+        this.exhausted = false;
+        this.credits = 0;       // Credits that arrived after the previous pass was exhausted must not widen the new pass's window
+        this.combinations = message.getCombinations();
+        this.combinationValues = new ArrayList<>(this.combinations.length);
+        for (int i = 0; i < this.combinations.length; i++)
+            this.combinationValues.add(new HashSet<>());
         return this;
     }
 
+    // Encodes each value with its length, so that different value lists never produce the same combined value; missing values read as null
+    private void readCombinations() {
+        StringBuilder combinedValue = new StringBuilder();
+        for (int i = 0; i < this.combinations.length; i++) {
+            combinedValue.setLength(0);
+            for (int col : this.combinations[i]) {
+                String value = col < this.parser.size() ? this.parser.get(col) : null;
+                if (value == null)
+                    combinedValue.append('-');
+                else
+                    combinedValue.append(value.length()).append(':').append(value);
+                combinedValue.append(';');
+            }
+            this.combinationValues.get(i).add(combinedValue.toString());
+        }
+    }
+
+    // Numbers are sorted, so that the batch can carry them as small differences
+    private long[][] toNumberArrays() {
+        if (this.combinations != null)
+            return new long[this.combinations.length][0];
+        long[][] arrays = new long[this.numbers.length][];
+        for (int col = 0; col < this.numbers.length; col++) {
+            arrays[col] = this.numbers[col].toLongArray();
+            Arrays.sort(arrays[col]);
+            this.numbers[col].clear();
+        }
+        return arrays;
+    }
+
+    private String[][] toArrays() {
+        if (this.combinations != null) {
+            String[][] arrays = new String[this.combinations.length][];
+            for (int i = 0; i < this.combinations.length; i++) {
+                arrays[i] = this.combinationValues.get(i).toArray(new String[0]);
+                this.combinationValues.get(i).clear();
+            }
+            return arrays;
+        }
+        String[][] arrays = new String[this.columns.length][];
+        for (int col = 0; col < this.columns.length; col++) {
+            arrays[col] = this.columns[col].toArray();
+            this.columns[col].clear();
+        }
+        return arrays;
+    }
+
     ////////////////////
     // Actor Behavior //
     ////////////////////
 
     private Behavior<Message> handle(PostStop signal) throws IOException {
-        this.reader.close();
+        this.parser.close();
         return this;
     }
 
@@ -108,5 +237,14 @@ public class InputReader extends AbstractBehavior<InputReader.Message> {
     public static class ReadBatchMessage implements Message {
         private static final long serialVersionUID = -7915854043207237318L;
         ActorRef<DependencyMiner.Message> replyTo;
+        int credits;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReadCombinationsMessage implements Message {
+        private static final long serialVersionUID = 4068531872651302867L;
+        int[][] combinations;
     }
 }
@@ -14,6 +14,12 @@ public class CommandMaster extends Command {
     boolean startPaused = SystemConfigurationSingleton.get().isStartPaused();
     @Parameter(names = {"-hm", "--hardMode"}, description = "Solve the hard version of the task", required = false, arity = 1)
     boolean hardMode = SystemConfigurationSingleton.get().isHardMode();
+    @Parameter(names = {"-vst", "--validationStrategy"}, description = "The algorithm that validates IND candidates; HASH probes hashed attributes, SORTED_MERGE validates all candidates in one merge pass over sorted attributes, HASH_PARTITIONED validates all candidates on hash partitions of the values that are distributed over the workers, INVERTED_INDEX validates such partitions by intersecting the sets of attributes that contain each value", required = false)
+    ValidationStrategy validationStrategy = SystemConfigurationSingleton.get().getValidationStrategy();
+    @Parameter(names = {"-mb", "--memoryBudget"}, description = "The number of megabytes that the attribute value sets may occupy on the master before the largest ones are spilled as sorted runs to disk", required = false)
+    int memoryBudget = SystemConfigurationSingleton.get().getMemoryBudget();
+    @Parameter(names = {"-sd", "--spillDirectory"}, description = "The local directory into which the master spills attribute values that exceed its memory budget", required = false)
+    String spillDirectory = SystemConfigurationSingleton.get().getSpillDirectory();
     @Parameter(names = {"-ip", "--inputPath"}, description = "Input path for the input data; all files in this folder are considered", required = false, arity = 1)
     String inputPath = InputConfigurationSingleton.get().getInputPath();
     @Parameter(names = {"-fh", "--fileHasHeader"}, description = "File has header as defined by the input data", required = false, arity = 1)
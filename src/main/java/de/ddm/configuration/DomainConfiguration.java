@@ -7,6 +7,20 @@ public class DomainConfiguration {
 
     private final int inputReaderBatchSize = 10000;
 
+    private final long inputReaderSplitSize = 64L * 1024 * 1024; // The number of bytes from which on an input file is split into ranges for parallel readers
+
+    private final int inputReaderBatchCredits = 2;     // The number of batches an InputReader may read ahead of the DependencyMiner's consumption
+
+    private final int bloomFilterSize = 1 << 16;       // The number of bits in the Bloom filter that summarizes the values of each attribute
+
+    private final int maxCandidatesPerTask = 16;       // The maximum number of IND candidates that the DependencyMiner puts into one task
+
+    private final int valuePartitions = 64;            // The number of hash partitions that the attribute values are split into for partitioned validation
+
+    private final long columnStoreCapacity = 512L * 1024 * 1024; // The number of bytes that each node's column store may cache, mostly off the heap
+
+    private final long columnArenaSlabSize = 64L * 1024 * 1024; // The number of bytes of direct memory that the column store allocates at once
+
     private final String resultCollectorOutputFileName = "results.txt";
 
 }
@@ -1,23 +1,19 @@
 package de.ddm.configuration;
 
-import com.opencsv.CSVParser;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.enums.CSVReaderNullFieldIndicator;
-import com.opencsv.exceptions.CsvValidationException;
+import de.ddm.input.CsvParser;
 import lombok.Data;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 
 @Data
 public class InputConfiguration {
 
+    private static final long RESYNC_WINDOW = 1 << 16;      // The bytes around an offset whose records decide where the record at the offset starts
+    private static final int RESYNC_RECORDS = 16;           // The records after the offset that must fit the field count
+
     private String inputPath = "data" + File.separator + "TPCH";
     private boolean fileHasHeader = true;
     private Charset charset = StandardCharsets.UTF_8;
@@ -42,25 +38,80 @@ public class InputConfiguration {
         return new File(this.inputPath).listFiles();
     }
 
-    public CSVReader createCSVReader(File inputFile) throws IOException {
-        CSVParser parser = new CSVParserBuilder()
-                .withSeparator(this.valueSeparator)
-                .withQuoteChar(this.valueQuote)
-                .withEscapeChar(this.valueEscape)
-                .withStrictQuotes(this.valueStrictQuotes)
-                .withIgnoreLeadingWhiteSpace(this.valueIgnoreLeadingWhitespace)
-                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
-                .build();
+    public CsvParser createCsvParser(File inputFile) throws IOException {
+        return this.createCsvParser(inputFile, 0);
+    }
+
+    public CsvParser createCsvParser(File inputFile, long start) throws IOException {
+        return new CsvParser(inputFile.toPath(), this.charset, this.valueSeparator, this.valueQuote, this.valueEscape, this.valueStrictQuotes, this.valueIgnoreLeadingWhitespace, start);
+    }
+
+    // Returns where the given one of a file's byte ranges of about equal size starts: at the first record at or after the range's byte
+    // offset or, if the records around that offset leave the record start open, at the next range's start, so that the range joins
+    // the previous one; every reader finds its own range this way, and adjacent readers agree on the start they share
+    public long getRangeStart(File inputFile, int range, int ranges, int fields) throws IOException {
+        long length = inputFile.length();
+        for (int next = range; next < ranges; next++) {
+            long start = this.alignToRecord(inputFile, length * next / ranges, fields);
+            if (start >= 0)
+                return start;
+        }
+        return length;
+    }
+
+    // Returns the start of the first record at or after the given offset, or -1 if it is ambiguous. Line starts are record starts
+    // unless a quoted field contains line breaks, which depends on the quote parity before the offset; so the lines from a window
+    // before the offset are parsed once outside and once inside a quoted field, and only the parity whose records all have the
+    // given number of fields up to a window after the offset fits the file
+    public long alignToRecord(File inputFile, long offset, int fields) throws IOException {
+        if (offset <= 0)
+            return 0;
+        long from = offset - RESYNC_WINDOW;
+        if (from <= 0)
+            return this.resync(inputFile, 0, false, offset, -1);       // The file starts outside quoted fields
+        long unquoted = this.resync(inputFile, from, false, offset, fields);
+        long quoted = this.resync(inputFile, from, true, offset, fields);
+        if (unquoted >= 0 && quoted >= 0)
+            return unquoted == quoted ? unquoted : -1;
+        return Math.max(unquoted, quoted);
+    }
 
-        BufferedReader buffer = Files.newBufferedReader(inputFile.toPath(), this.charset);
-        return new CSVReaderBuilder(buffer).withCSVParser(parser).build();
+    // Parses from the first line at or after the given position as if it started inside a quoted field or not and returns the first
+    // record start at or after the offset, or -1 if a record has another number of fields or ends only beyond the window
+    private long resync(File inputFile, long from, boolean quoted, long offset, int fields) throws IOException {
+        try (CsvParser parser = this.createCsvParser(inputFile, from)) {
+            parser.setReadLimit(offset + RESYNC_WINDOW);
+            if (quoted)
+                parser.continueQuotedField();
+            boolean partial = quoted;           // The first record then misses the fields before the position
+            long boundary = -1;
+            int confirmations = 0;
+            while (true) {
+                long position = parser.getPosition();
+                if (boundary < 0 && position >= offset)
+                    boundary = position;
+                if (boundary >= 0 && (fields < 0 || confirmations == RESYNC_RECORDS))
+                    return boundary;
+                try {
+                    if (!parser.next())
+                        return boundary;        // The end of the file or the window lies behind the offset
+                } catch (IOException e) {
+                    return -1;                  // The quoted field did not end within the window
+                }
+                if (!partial && fields >= 0 && parser.size() != fields)
+                    return -1;
+                partial = false;
+                if (boundary >= 0)
+                    confirmations++;
+            }
+        }
     }
 
-    public String[] getHeader(File inputFile) throws IOException, CsvValidationException {
-        CSVReader reader = this.createCSVReader(inputFile);
+    public String[] getHeader(File inputFile) throws IOException {
+        CsvParser parser = this.createCsvParser(inputFile);
 
-        String[] line = reader.readNext();
-        reader.close();
+        String[] line = parser.next() ? parser.toArray() : new String[0];
+        parser.close();
 
         if (!this.fileHasHeader)
             for (int i = 0; i < line.length; i++)
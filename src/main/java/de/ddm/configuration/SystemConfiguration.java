@@ -32,6 +32,12 @@ public class SystemConfiguration {
 
     private boolean hardMode = false;                    // Solve the hard version of the task
 
+    private ValidationStrategy validationStrategy = ValidationStrategy.HASH; // The algorithm that the workers use to validate IND candidates
+
+    private int memoryBudget = (int) (Runtime.getRuntime().maxMemory() / 4 / (1024 * 1024)); // The number of megabytes that the master's attribute value sets may occupy before the largest ones spill to disk
+
+    private String spillDirectory = System.getProperty("java.io.tmpdir"); // The local directory into which the master spills sorted runs of attribute values
+
     private static String getDefaultHost() {
         try {
             return InetAddress.getLocalHost().getHostAddress();
@@ -49,6 +55,9 @@ public class SystemConfiguration {
         this.numWorkers = commandMaster.numWorkers;
         this.startPaused = commandMaster.startPaused;
         this.hardMode = commandMaster.hardMode;
+        this.validationStrategy = commandMaster.validationStrategy;
+        this.memoryBudget = commandMaster.memoryBudget;
+        this.spillDirectory = commandMaster.spillDirectory;
     }
 
     public void update(CommandWorker commandWorker) {
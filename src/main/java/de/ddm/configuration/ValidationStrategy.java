@@ -0,0 +1,12 @@
+package de.ddm.configuration;
+
+public enum ValidationStrategy {
+
+    HASH,           // Hash every referenced attribute and probe it with the values of every dependent attribute
+
+    SORTED_MERGE,   // Validate all candidates at once in a single merge pass over the sorted attribute values (SPIDER)
+
+    HASH_PARTITIONED, // Hash-partition the values of all attributes and validate all candidates partition by partition, skipping already refuted candidates (BINDER)
+
+    INVERTED_INDEX  // Hash-partition the values like HASH_PARTITIONED, but validate each partition by intersecting the sets of attributes that contain each value
+}
@@ -0,0 +1,359 @@
+package de.ddm.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Parses CSV files on the byte level: lines are scanned in large buffers and field contents are copied into one
+ * byte arena per record, so that callers can hash and compare fields without decoding them and only materialize
+ * the strings they actually need. The parsing rules reproduce OpenCSV's CSVParser with empty separators read as
+ * null, which this project used before; the separator, quote and escape characters must be ASCII and the charset
+ * must be UTF-8 or an ASCII-compatible single-byte charset.
+ */
+public class CsvParser implements Closeable {
+
+    public static final long NOT_A_NUMBER = Long.MAX_VALUE;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_NUMBER_DIGITS = 18;        // Leaves the range below -10^18 free for dates
+    private static final String ASCII_PROBE = "\n\r;,\"'\\ azAZ09";
+
+    private final InputStream input;
+    private final Charset charset;
+    private final boolean utf8;
+    private final byte separator;
+    private final byte quote;
+    private final byte escape;
+    private final boolean strictQuotes;
+    private final boolean ignoreLeadingWhiteSpace;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private long bufferOffset;                      // The file offset of the buffer's first byte
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfInput = false;
+
+    private byte[] values = new byte[1024];         // The contents of the current record's fields
+    private int valuesLength = 0;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private boolean[] fieldNulls = new boolean[16];
+    private int fields = 0;
+    private boolean inField = false;                // Carried across lines like OpenCSV does
+    private boolean continueQuotedField = false;
+    private long readLimit = Long.MAX_VALUE;
+
+    // Starts reading at the first line that begins at or after the given offset, so that parsers of adjacent byte ranges
+    // split the file at line boundaries; if quoted fields may contain line breaks, the offsets must be record starts
+    // as InputConfiguration.alignToRecord() finds them
+    public CsvParser(Path path, Charset charset, char separator, char quote, char escape, boolean strictQuotes, boolean ignoreLeadingWhiteSpace, long start) throws IOException {
+        if (separator > 0x7F || quote > 0x7F || escape > 0x7F)
+            throw new IllegalArgumentException("The separator, quote and escape characters must be ASCII characters");
+        this.utf8 = charset.equals(StandardCharsets.UTF_8);
+        if (!this.utf8 && (charset.newEncoder().maxBytesPerChar() != 1 || !Arrays.equals(ASCII_PROBE.getBytes(charset), ASCII_PROBE.getBytes(StandardCharsets.US_ASCII))))
+            throw new IllegalArgumentException("The charset " + charset + " is neither UTF-8 nor an ASCII-compatible single-byte charset");
+
+        this.input = Files.newInputStream(path);
+        this.charset = charset;
+        this.separator = (byte) separator;
+        this.quote = (byte) quote;
+        this.escape = (byte) escape;
+        this.strictQuotes = strictQuotes;
+        this.ignoreLeadingWhiteSpace = ignoreLeadingWhiteSpace;
+
+        if (start > 0) {
+            long skip = start - 1;
+            while (skip > 0) {
+                long skipped = this.input.skip(skip);
+                if (skipped <= 0)
+                    break;
+                skip -= skipped;
+            }
+            this.bufferOffset = start - 1 - skip;
+            this.nextLine();
+        }
+    }
+
+    // The file offset at which the next record begins
+    public long getPosition() {
+        return this.bufferOffset + this.position;
+    }
+
+    // Makes the next record continue a quoted field that began before the parser's start, so that callers can test
+    // whether the start lies inside a quoted field
+    public void continueQuotedField() {
+        this.continueQuotedField = true;
+        this.inField = true;
+    }
+
+    // Stops reading at the given file offset: records that begin at or after it are not read and records that continue
+    // beyond it fail like unterminated ones, which bounds how far a parser reads that starts in the wrong quote state
+    public void setReadLimit(long readLimit) {
+        this.readLimit = readLimit;
+    }
+
+    ////////////////////
+    // Record Access  //
+    ////////////////////
+
+    public int size() {
+        return this.fields;
+    }
+
+    public boolean isNull(int field) {
+        return this.fieldNulls[field];
+    }
+
+    public String get(int field) {
+        if (this.fieldNulls[field])
+            return null;
+        return new String(this.values, this.fieldStarts[field], this.length(field), this.charset);
+    }
+
+    public String[] toArray() {
+        String[] record = new String[this.fields];
+        for (int field = 0; field < this.fields; field++)
+            record[field] = this.get(field);
+        return record;
+    }
+
+    // Returns the field's value as a long if the field is an integer in canonical form or a yyyy-MM-dd date and NOT_A_NUMBER otherwise;
+    // canonical integers have no sign but a minus, no leading zeros and at most 18 digits, so that every long stands for exactly
+    // one string, and dates map below all of them
+    public long number(int field) {
+        int start = this.fieldStarts[field];
+        int length = this.length(field);
+        if (this.fieldNulls[field] || length == 0)
+            return NOT_A_NUMBER;
+
+        if (length == 10 && this.values[start + 4] == '-' && this.values[start + 7] == '-') {
+            long date = 0;
+            for (int i = start; i < start + 10; i++) {
+                if (i == start + 4 || i == start + 7)
+                    continue;
+                int digit = this.values[i] - '0';
+                if (digit < 0 || digit > 9)
+                    return NOT_A_NUMBER;
+                date = 10 * date + digit;
+            }
+            return Long.MIN_VALUE + date;
+        }
+
+        boolean negative = this.values[start] == '-';
+        int digits = negative ? length - 1 : length;
+        if (digits == 0 || digits > MAX_NUMBER_DIGITS)
+            return NOT_A_NUMBER;
+        int first = negative ? start + 1 : start;
+        if (this.values[first] == '0' && (digits > 1 || negative))
+            return NOT_A_NUMBER;
+        long number = 0;
+        for (int i = first; i < start + length; i++) {
+            int digit = this.values[i] - '0';
+            if (digit < 0 || digit > 9)
+                return NOT_A_NUMBER;
+            number = 10 * number + digit;
+        }
+        return negative ? -number : number;
+    }
+
+    public int length(int field) {
+        return this.fieldEnds[field] - this.fieldStarts[field];
+    }
+
+    public int hash(int field) {
+        int hash = 0;
+        for (int i = this.fieldStarts[field]; i < this.fieldEnds[field]; i++)
+            hash = 31 * hash + this.values[i];
+        return hash ^ (hash >>> 16);
+    }
+
+    public boolean equals(int field, byte[] bytes, int offset, int length) {
+        if (this.length(field) != length)
+            return false;
+        for (int i = 0, start = this.fieldStarts[field]; i < length; i++)
+            if (this.values[start + i] != bytes[offset + i])
+                return false;
+        return true;
+    }
+
+    public void copy(int field, byte[] bytes, int offset) {
+        System.arraycopy(this.values, this.fieldStarts[field], bytes, offset, this.length(field));
+    }
+
+    ////////////////////
+    // Parsing        //
+    ////////////////////
+
+    // Advances to the next record; a record spans several lines if a quoted field contains line breaks
+    public boolean next() throws IOException {
+        this.valuesLength = 0;
+        this.fields = 0;
+
+        if (this.getPosition() >= this.readLimit)
+            return false;
+        int lineStart = this.nextLine();
+        if (lineStart < 0)
+            return false;
+
+        int fieldStart = 0;
+        boolean pending = this.continueQuotedField;
+        this.continueQuotedField = false;
+        while (true) {
+            int lineEnd = this.lineEnd;
+            boolean inQuotes = pending;
+            boolean fromQuotedField = false;
+
+            for (int i = lineStart; i < lineEnd; i++) {
+                byte c = this.buffer[i];
+                if (c == this.escape) {
+                    if (!this.strictQuotes)
+                        this.inField = true;
+                    if ((inQuotes || this.inField) && i + 1 < lineEnd && this.isEscapable(this.buffer[i + 1]))
+                        this.append(this.buffer[++i]);
+                } else if (c == this.quote) {
+                    if ((inQuotes || this.inField) && i + 1 < lineEnd && this.buffer[i + 1] == this.quote) {
+                        this.append(this.buffer[++i]);
+                    } else {
+                        inQuotes = !inQuotes;
+                        if (this.valuesLength == fieldStart)
+                            fromQuotedField = true;
+                        // A quote in the middle of a field is kept as a character
+                        if (!this.strictQuotes && this.hasCharsBefore(lineStart, i, 3) && this.buffer[i - 1] != this.separator && i + 1 < lineEnd && this.buffer[i + 1] != this.separator) {
+                            if (this.ignoreLeadingWhiteSpace && this.valuesLength > fieldStart && this.isWhiteSpace(fieldStart))
+                                this.valuesLength = fieldStart;
+                            else
+                                this.append(c);
+                        }
+                    }
+                    this.inField = !this.inField;
+                } else if (c == this.separator && !inQuotes) {
+                    this.endField(fieldStart, fromQuotedField);
+                    fieldStart = this.valuesLength;
+                    fromQuotedField = false;
+                    this.inField = false;
+                } else if (!this.strictQuotes || inQuotes) {
+                    this.append(c);
+                    this.inField = true;
+                    fromQuotedField = true;
+                }
+            }
+
+            if (!inQuotes) {
+                this.inField = false;
+                this.endField(fieldStart, fromQuotedField);
+                return true;
+            }
+
+            // The quoted field continues on the next line
+            this.append((byte) '\n');
+            pending = true;
+            if (this.getPosition() >= this.readLimit)
+                throw new IOException("Quoted field continues beyond the read limit " + this.readLimit);
+            lineStart = this.nextLine();
+            if (lineStart < 0)
+                throw new IOException("Unterminated quoted field at end of CSV file");
+        }
+    }
+
+    // Whether the line has at least the given number of (UTF-16) characters before the given position, as OpenCSV counts them
+    private boolean hasCharsBefore(int lineStart, int position, int count) {
+        if (!this.utf8)
+            return position - lineStart >= count;
+        int chars = 0;
+        for (int i = lineStart; i < position && chars < count; i++) {
+            int b = this.buffer[i] & 0xFF;
+            if ((b & 0xC0) != 0x80)
+                chars += b >= 0xF0 ? 2 : 1;
+        }
+        return chars >= count;
+    }
+
+    private boolean isEscapable(byte c) {
+        return c == this.quote || c == this.escape || c == this.separator;
+    }
+
+    private boolean isWhiteSpace(int from) {
+        for (int i = from; i < this.valuesLength; i++)
+            if (!Character.isWhitespace(this.values[i]))
+                return false;
+        return true;
+    }
+
+    private void append(byte c) {
+        if (this.valuesLength == this.values.length)
+            this.values = Arrays.copyOf(this.values, this.values.length * 2);
+        this.values[this.valuesLength++] = c;
+    }
+
+    private void endField(int fieldStart, boolean fromQuotedField) {
+        if (this.fields == this.fieldStarts.length) {
+            this.fieldStarts = Arrays.copyOf(this.fieldStarts, this.fields * 2);
+            this.fieldEnds = Arrays.copyOf(this.fieldEnds, this.fields * 2);
+            this.fieldNulls = Arrays.copyOf(this.fieldNulls, this.fields * 2);
+        }
+        this.fieldStarts[this.fields] = fieldStart;
+        this.fieldEnds[this.fields] = this.valuesLength;
+        this.fieldNulls[this.fields] = this.valuesLength == fieldStart && !fromQuotedField;
+        this.fields++;
+    }
+
+    ////////////////////
+    // Line Scanning  //
+    ////////////////////
+
+    private int lineEnd;
+
+    // Finds the next line like BufferedReader.readLine, i.e., terminated by \n, \r or \r\n; returns its start or -1 at the end of the input
+    private int nextLine() throws IOException {
+        int scan = this.position;
+        while (true) {
+            while (scan < this.limit && this.buffer[scan] != '\n' && this.buffer[scan] != '\r')
+                scan++;
+            if (scan < this.limit && (this.buffer[scan] == '\n' || scan + 1 < this.limit || this.endOfInput))
+                break;
+            if (this.endOfInput) {
+                if (this.position == this.limit)
+                    return -1;
+                break;
+            }
+            scan -= this.position;
+            this.fill();
+            scan += this.position;
+        }
+
+        int lineStart = this.position;
+        this.lineEnd = scan;
+        if (scan < this.limit)
+            scan += this.buffer[scan] == '\r' && scan + 1 < this.limit && this.buffer[scan + 1] == '\n' ? 2 : 1;
+        this.position = scan;
+        return lineStart;
+    }
+
+    // Moves the unconsumed bytes to the front of the buffer, growing it for lines longer than the buffer, and reads more input
+    private void fill() throws IOException {
+        int remaining = this.limit - this.position;
+        if (remaining == this.buffer.length)
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        System.arraycopy(this.buffer, this.position, this.buffer, 0, remaining);
+        this.bufferOffset += this.position;
+        this.position = 0;
+        this.limit = remaining;
+
+        int read = this.input.read(this.buffer, this.limit, this.buffer.length - this.limit);
+        if (read < 0)
+            this.endOfInput = true;
+        else
+            this.limit += read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.input.close();
+    }
+}
@@ -0,0 +1,85 @@
+package de.ddm.input;
+
+import java.util.Arrays;
+
+/**
+ * Collects the distinct values of one column from the records of a CsvParser. Fields are hashed and compared as
+ * raw bytes, so a string is only materialized for the first occurrence of each value.
+ */
+public class DistinctValues {
+
+    private int[] slots = new int[1024];            // The index of the entry in each hash slot plus one; 0 marks a free slot
+    private int[] hashes = new int[512];
+    private int[] offsets = new int[512];
+    private int[] lengths = new int[512];
+    private String[] values = new String[512];
+    private byte[] bytes = new byte[4096];          // The concatenated bytes of all distinct values
+    private int bytesLength = 0;
+    private int size = 0;
+    private boolean containsNull = false;
+
+    // Returns the field's value if it was not contained yet and null otherwise; null fields are recorded by addNull()
+    public String add(CsvParser parser, int field) {
+        int hash = parser.hash(field);
+        int length = parser.length(field);
+        int mask = this.slots.length - 1;
+        int slot = hash & mask;
+        for (int entry; (entry = this.slots[slot]) != 0; slot = (slot + 1) & mask) {
+            entry--;
+            if (this.hashes[entry] == hash && parser.equals(field, this.bytes, this.offsets[entry], this.lengths[entry]))
+                return null;
+        }
+
+        if (this.size == this.values.length) {
+            this.hashes = Arrays.copyOf(this.hashes, this.size * 2);
+            this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+            this.lengths = Arrays.copyOf(this.lengths, this.size * 2);
+            this.values = Arrays.copyOf(this.values, this.size * 2);
+        }
+        if (this.bytesLength + length > this.bytes.length)
+            this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.bytesLength + length));
+
+        parser.copy(field, this.bytes, this.bytesLength);
+        String value = parser.get(field);
+        this.hashes[this.size] = hash;
+        this.offsets[this.size] = this.bytesLength;
+        this.lengths[this.size] = length;
+        this.values[this.size] = value;
+        this.bytesLength += length;
+        this.slots[slot] = ++this.size;
+
+        if (2 * this.size > this.slots.length)
+            this.rehash();
+        return value;
+    }
+
+    // Returns true if no null value was contained yet
+    public boolean addNull() {
+        boolean added = !this.containsNull;
+        this.containsNull = true;
+        return added;
+    }
+
+    public String[] toArray() {
+        return Arrays.copyOf(this.values, this.size + (this.containsNull ? 1 : 0));
+    }
+
+    public void clear() {
+        Arrays.fill(this.slots, 0);
+        Arrays.fill(this.values, 0, this.size, null);
+        this.bytesLength = 0;
+        this.size = 0;
+        this.containsNull = false;
+    }
+
+    private void rehash() {
+        this.slots = new int[this.slots.length * 2];
+        int mask = this.slots.length - 1;
+        for (int entry = 0; entry < this.size; entry++) {
+            int slot = this.hashes[entry] & mask;
+            while (this.slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            this.slots[slot] = entry + 1;
+        }
+    }
+}
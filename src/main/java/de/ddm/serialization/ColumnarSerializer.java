@@ -0,0 +1,400 @@
+package de.ddm.serialization;
+
+import akka.actor.ExtendedActorSystem;
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.ActorRefResolver;
+import akka.actor.typed.javadsl.Adapter;
+import akka.serialization.ByteBufferSerializer;
+import akka.serialization.SerializerWithStringManifest;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.profiling.ColumnStore;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.configuration.ValidationStrategy;
+import de.ddm.structures.Candidate;
+import de.ddm.structures.WorkMessage;
+
+import java.io.NotSerializableException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the data-carrying messages of the profiling actors as length-prefixed UTF-8 column blocks with varint
+ * lengths and the dictionary-encoded columns as delta-encoded varints instead of self-describing CBOR; all other
+ * messages keep their Jackson binding.
+ */
+public class ColumnarSerializer extends SerializerWithStringManifest implements ByteBufferSerializer {
+
+    private static final int IDENTIFIER = 1803;
+
+    private static final String BATCH_MANIFEST = "B";
+    private static final String TASK_MANIFEST = "T";
+    private static final String COMPLETION_MANIFEST = "C";
+    private static final String COLUMNS_MANIFEST = "S";
+
+    private final ActorRefResolver actorRefResolver;
+
+    public ColumnarSerializer(ExtendedActorSystem system) {
+        this.actorRefResolver = ActorRefResolver.get(Adapter.toTyped(system));
+    }
+
+    @Override
+    public int identifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public String manifest(Object o) {
+        if (o instanceof DependencyMiner.BatchMessage)
+            return BATCH_MANIFEST;
+        if (o instanceof DependencyWorker.TaskMessage)
+            return TASK_MANIFEST;
+        if (o instanceof DependencyMiner.CompletionMessage)
+            return COMPLETION_MANIFEST;
+        if (o instanceof ColumnStore.ColumnsMessage)
+            return COLUMNS_MANIFEST;
+        throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName() + " with " + this.getClass().getSimpleName());
+    }
+
+    @Override
+    public byte[] toBinary(Object o) {
+        Output output = new Output(1024);
+        if (o instanceof DependencyMiner.BatchMessage) {
+            DependencyMiner.BatchMessage message = (DependencyMiner.BatchMessage) o;
+            output.writeVarInt(message.getId());
+            output.writeVarInt(message.getReader());
+            output.writeColumns(message.getColumns());
+            output.writeNumbers(message.getNumbers());
+            output.writeBoolean(message.isLastBatch());
+        } else if (o instanceof DependencyWorker.TaskMessage) {
+            DependencyWorker.TaskMessage message = (DependencyWorker.TaskMessage) o;
+            output.writeString(this.actorRefResolver.toSerializationFormat(message.getDependencyMinerLargeMessageProxy()));
+            output.writeString(this.actorRefResolver.toSerializationFormat(message.getDependencyMiner()));
+            output.writeCandidates(message.getWork().getCandidates());
+            output.writeVarInt(message.getWork().getAttributeColumns().size());
+            for (Map.Entry<Integer, Integer> entry : message.getWork().getAttributeColumns().entrySet()) {
+                output.writeVarInt(entry.getKey());
+                output.writeVarInt(entry.getValue());
+            }
+            output.writeVarInt(message.getValidationStrategy().ordinal());
+        } else if (o instanceof DependencyMiner.CompletionMessage) {
+            DependencyMiner.CompletionMessage message = (DependencyMiner.CompletionMessage) o;
+            output.writeString(this.actorRefResolver.toSerializationFormat(message.getDependencyWorker()));
+            output.writeCandidates(message.getDep());
+        } else if (o instanceof ColumnStore.ColumnsMessage) {
+            ColumnStore.ColumnsMessage message = (ColumnStore.ColumnsMessage) o;
+            output.writeVarInt(message.getColumns().size());
+            for (Map.Entry<Integer, int[]> entry : message.getColumns().entrySet()) {
+                output.writeVarInt(entry.getKey());
+                output.writeIds(entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName() + " with " + this.getClass().getSimpleName());
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public void toBinary(Object o, ByteBuffer buf) {
+        buf.put(this.toBinary(o));
+    }
+
+    @Override
+    public Object fromBinary(byte[] bytes, String manifest) throws NotSerializableException {
+        return this.read(new Input(bytes, 0, bytes.length), manifest);
+    }
+
+    @Override
+    public Object fromBinary(ByteBuffer buf, String manifest) throws NotSerializableException {
+        if (buf.hasArray()) {
+            Input input = new Input(buf.array(), buf.arrayOffset() + buf.position(), buf.arrayOffset() + buf.limit());
+            Object message = this.read(input, manifest);
+            buf.position(input.position - buf.arrayOffset());
+            return message;
+        }
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return this.fromBinary(bytes, manifest);
+    }
+
+    private Object read(Input input, String manifest) throws NotSerializableException {
+        switch (manifest) {
+            case BATCH_MANIFEST: {
+                int id = input.readVarInt();
+                int reader = input.readVarInt();
+                String[][] columns = input.readColumns();
+                long[][] numbers = input.readNumbers();
+                return new DependencyMiner.BatchMessage(id, reader, columns, numbers, input.readBoolean());
+            }
+            case TASK_MANIFEST: {
+                ActorRef<LargeMessageProxy.Message> minerProxy = this.actorRefResolver.resolveActorRef(input.readString());
+                ActorRef<DependencyMiner.Message> miner = this.actorRefResolver.resolveActorRef(input.readString());
+                List<Candidate> candidates = input.readCandidates();
+                int numAttributes = input.readVarInt();
+                Map<Integer, Integer> attributeColumns = new HashMap<>(numAttributes * 2);
+                for (int i = 0; i < numAttributes; i++) {
+                    int attribute = input.readVarInt();
+                    attributeColumns.put(attribute, input.readVarInt());
+                }
+                ValidationStrategy strategy = ValidationStrategy.values()[input.readVarInt()];
+                return new DependencyWorker.TaskMessage(minerProxy, miner, new WorkMessage(candidates, attributeColumns, null), strategy);
+            }
+            case COMPLETION_MANIFEST: {
+                ActorRef<DependencyWorker.Message> worker = this.actorRefResolver.resolveActorRef(input.readString());
+                return new DependencyMiner.CompletionMessage(worker, input.readCandidates());
+            }
+            case COLUMNS_MANIFEST: {
+                int numColumns = input.readVarInt();
+                Map<Integer, int[]> columns = new HashMap<>(numColumns * 2);
+                for (int i = 0; i < numColumns; i++) {
+                    int columnId = input.readVarInt();
+                    columns.put(columnId, input.readIds());
+                }
+                return new ColumnStore.ColumnsMessage(columns);
+            }
+            default:
+                throw new NotSerializableException("Unknown manifest " + manifest + " for " + this.getClass().getSimpleName());
+        }
+    }
+
+    ////////////////////
+    // Binary Format  //
+    ////////////////////
+
+    private static class Output {
+        private static final int MAX_INLINE_LENGTH = 41; // The longest string whose UTF-8 length surely fits a one-byte varint
+
+        private byte[] buffer;
+        private int position = 0;
+
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void ensure(int bytes) {
+            if (this.position + bytes > this.buffer.length)
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.position + bytes));
+        }
+
+        void writeVarInt(int value) {
+            this.ensure(5);
+            while ((value & ~0x7F) != 0) {
+                this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            this.ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        void writeBoolean(boolean value) {
+            this.ensure(1);
+            this.buffer[this.position++] = (byte) (value ? 1 : 0);
+        }
+
+        // Lengths are shifted by one so that 0 can encode null
+        void writeString(String value) {
+            if (value == null) {
+                this.writeVarInt(0);
+                return;
+            }
+            int length = value.length();
+
+            // Short strings, the common case for CSV values, are encoded in place behind a one-byte length
+            if (length <= MAX_INLINE_LENGTH) {
+                this.ensure(1 + 3 * length);
+                int start = this.position + 1;
+                int end = start;
+                for (int i = 0; i < length && end >= 0; i++) {
+                    char c = value.charAt(i);
+                    if (c < 0x80) {
+                        this.buffer[end++] = (byte) c;
+                    } else if (c < 0x800) {
+                        this.buffer[end++] = (byte) (0xC0 | (c >> 6));
+                        this.buffer[end++] = (byte) (0x80 | (c & 0x3F));
+                    } else if (!Character.isSurrogate(c)) {
+                        this.buffer[end++] = (byte) (0xE0 | (c >> 12));
+                        this.buffer[end++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                        this.buffer[end++] = (byte) (0x80 | (c & 0x3F));
+                    } else {
+                        end = -1;
+                    }
+                }
+                if (end >= 0) {
+                    this.buffer[this.position] = (byte) (end - start + 1);
+                    this.position = end;
+                    return;
+                }
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            this.writeVarInt(bytes.length + 1);
+            this.ensure(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        void writeColumn(String[] column) {
+            this.writeVarInt(column.length);
+            for (String value : column)
+                this.writeString(value);
+        }
+
+        void writeColumns(String[][] columns) {
+            this.writeVarInt(columns.length);
+            for (String[] column : columns)
+                this.writeColumn(column);
+        }
+
+        // Batches carry their numbers sorted, so they are delta-encoded like ids
+        void writeNumbers(long[][] columns) {
+            this.writeVarInt(columns.length);
+            for (long[] column : columns) {
+                this.writeVarInt(column.length);
+                long previous = 0;
+                for (long number : column) {
+                    long delta = number - previous;
+                    this.writeVarLong((delta << 1) ^ (delta >> 63));
+                    previous = number;
+                }
+            }
+        }
+
+        // Columns hold sorted value ids, so the zigzag-encoded differences between neighbours mostly fit into one byte
+        void writeIds(int[] ids) {
+            this.writeVarInt(ids.length);
+            int previous = 0;
+            for (int id : ids) {
+                int delta = id - previous;
+                this.writeVarInt((delta << 1) ^ (delta >> 31));
+                previous = id;
+            }
+        }
+
+        void writeCandidates(List<Candidate> candidates) {
+            this.writeVarInt(candidates.size());
+            for (Candidate candidate : candidates) {
+                this.writeVarInt(candidate.getDependent());
+                this.writeVarInt(candidate.getReferenced());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.position);
+        }
+    }
+
+    private static class Input {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        Input(byte[] buffer, int position, int limit) {
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        int readVarInt() throws NotSerializableException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (this.position >= this.limit)
+                    throw new NotSerializableException("Truncated varint");
+                byte b = this.buffer[this.position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw new NotSerializableException("Malformed varint");
+        }
+
+        long readVarLong() throws NotSerializableException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (this.position >= this.limit)
+                    throw new NotSerializableException("Truncated varlong");
+                byte b = this.buffer[this.position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw new NotSerializableException("Malformed varlong");
+        }
+
+        boolean readBoolean() {
+            return this.buffer[this.position++] != 0;
+        }
+
+        String readString() throws NotSerializableException {
+            int length = this.readVarInt() - 1;
+            if (length < 0)
+                return null;
+            if (this.position + length > this.limit)
+                throw new NotSerializableException("Truncated string");
+            String value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+            return value;
+        }
+
+        String[] readColumn() throws NotSerializableException {
+            String[] column = new String[this.readVarInt()];
+            for (int i = 0; i < column.length; i++)
+                column[i] = this.readString();
+            return column;
+        }
+
+        String[][] readColumns() throws NotSerializableException {
+            String[][] columns = new String[this.readVarInt()][];
+            for (int i = 0; i < columns.length; i++)
+                columns[i] = this.readColumn();
+            return columns;
+        }
+
+        long[][] readNumbers() throws NotSerializableException {
+            long[][] columns = new long[this.readVarInt()][];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new long[this.readVarInt()];
+                long previous = 0;
+                for (int j = 0; j < columns[i].length; j++) {
+                    long delta = this.readVarLong();
+                    previous += (delta >>> 1) ^ -(delta & 1);
+                    columns[i][j] = previous;
+                }
+            }
+            return columns;
+        }
+
+        int[] readIds() throws NotSerializableException {
+            int[] ids = new int[this.readVarInt()];
+            int previous = 0;
+            for (int i = 0; i < ids.length; i++) {
+                int delta = this.readVarInt();
+                previous += (delta >>> 1) ^ -(delta & 1);
+                ids[i] = previous;
+            }
+            return ids;
+        }
+
+        List<Candidate> readCandidates() throws NotSerializableException {
+            int size = this.readVarInt();
+            List<Candidate> candidates = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int dependent = this.readVarInt();
+                candidates.add(new Candidate(dependent, this.readVarInt()));
+            }
+            return candidates;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.ddm.structures;
+
+import java.util.*;
+
+/**
+ * Numbers the attribute lists that form the sides of IND candidates, so that n-ary candidates are pairs of ids just
+ * like unary ones; the id of each unary attribute denotes the list that holds only this attribute. The candidates of
+ * the next level are generated apriori-style from the valid INDs of the current level.
+ */
+public class AttributeCombinations {
+
+    private final int[] attributeFiles;
+    private final List<int[]> combinations = new ArrayList<>();
+    private final Map<List<Integer>, Integer> ids = new HashMap<>();
+
+    public AttributeCombinations(int[] attributeFiles) {
+        this.attributeFiles = attributeFiles;
+        for (int attribute = 0; attribute < attributeFiles.length; attribute++)
+            this.idOf(new int[]{attribute});
+    }
+
+    public int[] get(int id) {
+        return this.combinations.get(id);
+    }
+
+    public int fileOf(int id) {
+        return this.attributeFiles[this.combinations.get(id)[0]];
+    }
+
+    private int idOf(int[] attributes) {
+        List<Integer> key = toList(attributes);
+        Integer id = this.ids.get(key);
+        if (id == null) {
+            id = this.combinations.size();
+            this.ids.put(key, id);
+            this.combinations.add(attributes);
+        }
+        return id;
+    }
+
+    // Joins every two valid INDs that agree on their files and on all but their last attribute pair into a candidate with both
+    // last pairs; dependent attributes stay in ascending order, so that every candidate is generated in one permutation only
+    public Set<Candidate> nextLevel(Collection<Candidate> valid) {
+        Map<List<Integer>, List<Candidate>> groups = new HashMap<>();
+        for (Candidate ind : valid) {
+            int[] dependent = this.get(ind.getDependent());
+            int[] referenced = this.get(ind.getReferenced());
+            List<Integer> prefix = new ArrayList<>(2 * dependent.length);
+            prefix.add(this.fileOf(ind.getDependent()));
+            prefix.add(this.fileOf(ind.getReferenced()));
+            for (int i = 0; i < dependent.length - 1; i++) {
+                prefix.add(dependent[i]);
+                prefix.add(referenced[i]);
+            }
+            groups.computeIfAbsent(prefix, key -> new ArrayList<>()).add(ind);
+        }
+
+        Set<Candidate> validSet = new HashSet<>(valid);
+        Set<Candidate> candidates = new HashSet<>();
+        for (List<Candidate> group : groups.values()) {
+            for (Candidate first : group) {
+                for (Candidate second : group) {
+                    int[] firstDependent = this.get(first.getDependent());
+                    int[] firstReferenced = this.get(first.getReferenced());
+                    int last = firstDependent.length - 1;
+                    int dependentAttribute = this.get(second.getDependent())[last];
+                    int referencedAttribute = this.get(second.getReferenced())[last];
+                    if (firstDependent[last] >= dependentAttribute || contains(firstReferenced, referencedAttribute))
+                        continue;
+
+                    int[] dependent = Arrays.copyOf(firstDependent, last + 2);
+                    int[] referenced = Arrays.copyOf(firstReferenced, last + 2);
+                    dependent[last + 1] = dependentAttribute;
+                    referenced[last + 1] = referencedAttribute;
+                    if (this.areProjectionsValid(dependent, referenced, validSet))
+                        candidates.add(new Candidate(this.idOf(dependent), this.idOf(referenced)));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // Every IND that drops one attribute pair must hold; the two that drop one of the last pairs are the joined INDs themselves
+    private boolean areProjectionsValid(int[] dependent, int[] referenced, Set<Candidate> valid) {
+        for (int i = 0; i < dependent.length - 2; i++) {
+            Integer dependentId = this.ids.get(toList(without(dependent, i)));
+            Integer referencedId = this.ids.get(toList(without(referenced, i)));
+            if (dependentId == null || referencedId == null || !valid.contains(new Candidate(dependentId, referencedId)))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] attributes, int attribute) {
+        for (int a : attributes)
+            if (a == attribute)
+                return true;
+        return false;
+    }
+
+    private static int[] without(int[] attributes, int index) {
+        int[] result = new int[attributes.length - 1];
+        System.arraycopy(attributes, 0, result, 0, index);
+        System.arraycopy(attributes, index + 1, result, index, attributes.length - index - 1);
+        return result;
+    }
+
+    private static List<Integer> toList(int[] attributes) {
+        List<Integer> list = new ArrayList<>(attributes.length);
+        for (int attribute : attributes)
+            list.add(attribute);
+        return list;
+    }
+}
@@ -0,0 +1,51 @@
+package de.ddm.structures;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+public class BloomFilter {
+
+    private static final int NUM_HASH_FUNCTIONS = 2;
+
+    private long[] bits;
+
+    public BloomFilter(int size) {
+        this.bits = new long[(size + 63) / 64];
+    }
+
+    public void add(String value) {
+        int hash = hash(value);
+        for (int i = 0; i < NUM_HASH_FUNCTIONS; i++) {
+            int bit = this.bitOf(hash, i);
+            this.bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // Adds all values of the other filter; both filters must have the same size
+    public void merge(BloomFilter other) {
+        for (int i = 0; i < this.bits.length; i++)
+            this.bits[i] |= other.bits[i];
+    }
+
+    // False if some value added to the other filter is definitely not contained in this filter; both filters must have the same size
+    public boolean mightContainAll(BloomFilter other) {
+        for (int i = 0; i < this.bits.length; i++)
+            if ((other.bits[i] & ~this.bits[i]) != 0)
+                return false;
+        return true;
+    }
+
+    private int bitOf(int hash, int i) {
+        int combined = hash + i * (hash >>> 16 | hash << 16);
+        return Math.floorMod(combined, this.bits.length << 6);
+    }
+
+    private static int hash(String value) {
+        if (value == null)
+            return 0;
+        int h = value.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+}
@@ -0,0 +1,18 @@
+package de.ddm.structures;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class Candidate {
+
+    private int dependent;      // The global id of the dependent attribute
+
+    private int referenced;     // The global id of the referenced attribute
+
+}
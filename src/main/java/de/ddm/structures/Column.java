@@ -0,0 +1,260 @@
+package de.ddm.structures;
+
+import de.ddm.validation.SortedMergeValidator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The distinct values of an attribute, held either on the heap or in a compressed spill file until they are
+ * dictionary-encoded. Values that CsvParser reads as numbers are kept as sorted longs and precede the other values,
+ * which are sorted by SortedMergeValidator.VALUE_ORDER. Spill files store the numbers as longs, followed by each other
+ * value as its UTF-8 length plus one, so that 0 encodes null, and its bytes.
+ */
+public class Column {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final long[] numbers;       // Null if the column is spilled
+    private final String[] values;      // Null if the column is spilled
+    private final File file;            // Null if the column is on the heap
+    private final int numberCount;
+    private final int size;
+
+    public Column(String[] values) {
+        this(new long[0], values);
+    }
+
+    public Column(long[] numbers, String[] values) {
+        this.numbers = numbers;
+        this.values = values;
+        this.file = null;
+        this.numberCount = numbers.length;
+        this.size = numbers.length + values.length;
+    }
+
+    private Column(File file, int numberCount, int size) {
+        this.numbers = null;
+        this.values = null;
+        this.file = file;
+        this.numberCount = numberCount;
+        this.size = size;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int numberCount() {
+        return this.numberCount;
+    }
+
+    public boolean isSpilled() {
+        return this.file != null;
+    }
+
+    public Reader reader() throws IOException {
+        return new Reader(this);
+    }
+
+    public void delete() {
+        if (this.isSpilled())
+            this.file.delete();
+    }
+
+    ////////////////////
+    // Spilling       //
+    ////////////////////
+
+    // Writes the given sorted, distinct numbers and values into a new spill file in the given directory
+    public static Column write(File directory, long[] numbers, String[] values) throws IOException {
+        try (Writer writer = new Writer(directory)) {
+            for (long number : numbers)
+                writer.writeNumber(number);
+            for (String value : values)
+                writer.write(value);
+            return writer.toColumn();
+        }
+    }
+
+    // Merges sorted columns into one sorted spill file without duplicates, first their numbers and then their other values
+    public static Column merge(File directory, List<Column> columns) throws IOException {
+        PriorityQueue<Reader> numberReaders = new PriorityQueue<>(columns.size(), Comparator.comparingLong(reader -> reader.currentNumber));
+        PriorityQueue<Reader> readers = new PriorityQueue<>(columns.size(), (r1, r2) -> SortedMergeValidator.VALUE_ORDER.compare(r1.current, r2.current));
+        List<Reader> opened = new ArrayList<>(columns.size());
+        try (Writer writer = new Writer(directory)) {
+            for (Column column : columns) {
+                Reader reader = column.reader();
+                opened.add(reader);
+                if (reader.advanceNumber())
+                    numberReaders.add(reader);
+            }
+
+            boolean firstNumber = true;
+            long lastNumber = 0;
+            while (!numberReaders.isEmpty()) {
+                Reader reader = numberReaders.poll();
+                if (firstNumber || lastNumber != reader.currentNumber)
+                    writer.writeNumber(reader.currentNumber);
+                firstNumber = false;
+                lastNumber = reader.currentNumber;
+                if (reader.advanceNumber())
+                    numberReaders.add(reader);
+            }
+
+            for (Reader reader : opened)
+                if (reader.advance())
+                    readers.add(reader);
+
+            boolean first = true;
+            String last = null;
+            while (!readers.isEmpty()) {
+                Reader reader = readers.poll();
+                if (first || !Objects.equals(last, reader.current))
+                    writer.write(reader.current);
+                first = false;
+                last = reader.current;
+                if (reader.advance())
+                    readers.add(reader);
+            }
+            return writer.toColumn();
+        } finally {
+            for (Reader reader : opened)
+                reader.close();
+        }
+    }
+
+    private static class Writer implements Closeable {
+        private final File file;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DataOutputStream output;
+        private int numberCount = 0;
+        private int size = 0;
+        private boolean closed = false;
+
+        Writer(File directory) throws IOException {
+            this.file = File.createTempFile("column", ".run", directory);
+            this.output = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(this.file), this.deflater, BUFFER_SIZE), BUFFER_SIZE));
+        }
+
+        void writeNumber(long number) throws IOException {
+            this.output.writeLong(number);
+            this.numberCount++;
+            this.size++;
+        }
+
+        void write(String value) throws IOException {
+            if (value == null) {
+                this.output.writeInt(0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                this.output.writeInt(bytes.length + 1);
+                this.output.write(bytes);
+            }
+            this.size++;
+        }
+
+        Column toColumn() throws IOException {
+            this.close();
+            return new Column(this.file, this.numberCount, this.size);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed)
+                return;
+            this.closed = true;
+            try {
+                this.output.close();
+            } finally {
+                this.deflater.end();
+            }
+        }
+    }
+
+    // Iterates the numbers and then the other values of a column in their sorted order
+    public static class Reader implements Closeable {
+        private final Column column;
+        private final Inflater inflater;
+        private final DataInputStream input;
+        private int position = 0;
+        private long currentNumber;
+        private String current;
+        private byte[] bytes = new byte[64];
+
+        private Reader(Column column) throws IOException {
+            this.column = column;
+            this.inflater = column.isSpilled() ? new Inflater() : null;
+            this.input = column.isSpilled() ? new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(column.file), this.inflater, BUFFER_SIZE), BUFFER_SIZE)) : null;
+        }
+
+        public boolean hasNextNumber() {
+            return this.position < this.column.numberCount;
+        }
+
+        public long nextNumber() throws IOException {
+            this.advanceNumber();
+            return this.currentNumber;
+        }
+
+        // Whether a value follows the numbers, which must have been read first
+        public boolean hasNext() {
+            return this.position < this.column.size;
+        }
+
+        public String next() throws IOException {
+            this.advance();
+            return this.current;
+        }
+
+        // Moves to the next number and returns false if there is none
+        boolean advanceNumber() throws IOException {
+            if (!this.hasNextNumber())
+                return false;
+            this.position++;
+            this.currentNumber = this.column.isSpilled() ? this.input.readLong() : this.column.numbers[this.position - 1];
+            return true;
+        }
+
+        // Moves to the next value behind the numbers and returns false if there is none
+        boolean advance() throws IOException {
+            if (!this.hasNext() || this.hasNextNumber())
+                return false;
+            this.position++;
+            if (!this.column.isSpilled()) {
+                this.current = this.column.values[this.position - 1 - this.column.numberCount];
+                return true;
+            }
+            int length = this.input.readInt() - 1;
+            if (length < 0) {
+                this.current = null;
+                return true;
+            }
+            if (length > this.bytes.length)
+                this.bytes = new byte[Math.max(length, 2 * this.bytes.length)];
+            this.input.readFully(this.bytes, 0, length);
+            this.current = new String(this.bytes, 0, length, StandardCharsets.UTF_8);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.input == null)
+                return;
+            try {
+                this.input.close();
+            } finally {
+                this.inflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package de.ddm.structures;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stores columns of value ids outside the heap in direct buffers, so that cached columns neither add to the garbage
+ * collector's work nor to its pauses. The arena allocates slabs of a fixed size on demand up to its capacity and hands
+ * out slices of them; a released slice is coalesced with its free neighbours and reused by later columns, because
+ * direct memory is only returned to the system when its buffer is collected.
+ */
+public class ColumnArena {
+
+    private final int slabSize;                     // In ints
+    private final int maxSlabs;
+    private final List<IntBuffer> slabs = new ArrayList<>();
+    private final List<TreeMap<Integer, Integer>> freeBlocks = new ArrayList<>(); // The length of each free block by its offset, per slab
+
+    public ColumnArena(long capacity, long slabSize) {
+        this.slabSize = (int) Math.min(slabSize / Integer.BYTES, Integer.MAX_VALUE / Integer.BYTES);
+        this.maxSlabs = (int) Math.max(1, capacity / slabSize);
+    }
+
+    // Copies the column into the arena and returns its block or null if no free block is large enough
+    public Block allocate(int[] values) {
+        if (values.length == 0)
+            return Block.onHeap(values);
+        if (values.length > this.slabSize)
+            return null;
+
+        for (int slab = 0; slab <= this.slabs.size(); slab++) {
+            if (slab == this.slabs.size()) {
+                if (this.slabs.size() == this.maxSlabs)
+                    return null;
+                this.addSlab();
+            }
+            for (Map.Entry<Integer, Integer> free : this.freeBlocks.get(slab).entrySet()) {
+                int offset = free.getKey();
+                int length = free.getValue();
+                if (length < values.length)
+                    continue;
+                this.freeBlocks.get(slab).remove(offset);
+                if (length > values.length)
+                    this.freeBlocks.get(slab).put(offset + values.length, length - values.length);
+                return new Block(slab, offset, this.slice(slab, offset, values));
+            }
+        }
+        return null;
+    }
+
+    // Returns the block's memory to the arena; the block's values must not be read anymore
+    public void release(Block block) {
+        if (block.slab < 0)
+            return;
+        TreeMap<Integer, Integer> free = this.freeBlocks.get(block.slab);
+        int offset = block.offset;
+        int length = block.values.capacity();
+
+        Map.Entry<Integer, Integer> previous = free.floorEntry(offset);
+        if (previous != null && previous.getKey() + previous.getValue() == offset) {
+            free.remove(previous.getKey());
+            offset = previous.getKey();
+            length += previous.getValue();
+        }
+        Integer next = free.get(offset + length);
+        if (next != null) {
+            free.remove(offset + length);
+            length += next;
+        }
+        free.put(offset, length);
+    }
+
+    private void addSlab() {
+        this.slabs.add(ByteBuffer.allocateDirect(this.slabSize * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer());
+        TreeMap<Integer, Integer> free = new TreeMap<>();
+        free.put(0, this.slabSize);
+        this.freeBlocks.add(free);
+    }
+
+    private IntBuffer slice(int slab, int offset, int[] values) {
+        IntBuffer buffer = this.slabs.get(slab).duplicate();
+        buffer.position(offset);
+        buffer.limit(offset + values.length);
+        IntBuffer slice = buffer.slice();
+        slice.put(values);
+        slice.clear();
+        return slice;
+    }
+
+    // A column's values in the arena or, for columns that the arena could not take, on the heap
+    public static class Block {
+        private final int slab;                     // -1 for blocks on the heap
+        private final int offset;
+        private final IntBuffer values;
+
+        private Block(int slab, int offset, IntBuffer values) {
+            this.slab = slab;
+            this.offset = offset;
+            this.values = values;
+        }
+
+        public static Block onHeap(int[] values) {
+            return new Block(-1, 0, IntBuffer.wrap(values));
+        }
+
+        public IntBuffer values() {
+            return this.values;
+        }
+
+        public boolean isOffHeap() {
+            return this.slab >= 0;
+        }
+
+        public long sizeInBytes() {
+            return 16 + (long) Integer.BYTES * this.values.capacity();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package de.ddm.structures;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@NoArgsConstructor
+public class ColumnStatistics {
+
+    public enum Type {
+        EMPTY, INTEGER, DECIMAL, DATE, STRING;
+
+        // The most specific type that accommodates the values of both types
+        public Type join(Type other) {
+            if (this == other || other == EMPTY)
+                return this;
+            if (this == EMPTY)
+                return other;
+            if ((this == INTEGER && other == DECIMAL) || (this == DECIMAL && other == INTEGER))
+                return DECIMAL;
+            return STRING;
+        }
+
+        // Whether an attribute of this type can hold all values of an attribute of the other type
+        public boolean accommodates(Type other) {
+            return this.join(other) == this;
+        }
+
+        public static Type of(String value) {
+            if (isDate(value))
+                return DATE;
+            int digits = 0, dots = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= '0' && c <= '9')
+                    digits++;
+                else if (c == '.')
+                    dots++;
+                else if (c != '-' || i != 0)
+                    return STRING;
+            }
+            if (digits == 0 || dots > 1)
+                return STRING;
+            return dots == 0 ? INTEGER : DECIMAL;
+        }
+
+        private static boolean isDate(String value) {
+            if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-')
+                return false;
+            for (int i = 0; i < value.length(); i++)
+                if (i != 4 && i != 7 && (value.charAt(i) < '0' || value.charAt(i) > '9'))
+                    return false;
+            return true;
+        }
+    }
+
+    @Setter
+    private long distinctCount;
+    @Setter
+    private long numberCount;               // The distinct values that are stored as numbers, see CsvParser.number()
+    private long nullCount;
+    private String min;
+    private String max;
+    private int maxLength;
+    private Type type = Type.EMPTY;
+
+    public void update(String value) {
+        if (value == null) {
+            this.nullCount++;
+            return;
+        }
+        if (this.min == null || value.compareTo(this.min) < 0)
+            this.min = value;
+        if (this.max == null || value.compareTo(this.max) > 0)
+            this.max = value;
+        this.maxLength = Math.max(this.maxLength, value.length());
+        if (this.type != Type.STRING)
+            this.type = this.type.join(Type.of(value));
+    }
+
+    // Combines the statistics of two disjoint sets of rows; the distinct count is set once all values are known
+    public void merge(ColumnStatistics other) {
+        this.nullCount += other.nullCount;
+        if (other.min != null && (this.min == null || other.min.compareTo(this.min) < 0))
+            this.min = other.min;
+        if (other.max != null && (this.max == null || other.max.compareTo(this.max) > 0))
+            this.max = other.max;
+        this.maxLength = Math.max(this.maxLength, other.maxLength);
+        this.type = this.type.join(other.type);
+    }
+
+    // Whether the statistics admit that all values of the dependent column are contained in the referenced column
+    public static boolean mayBeIncluded(ColumnStatistics dependent, ColumnStatistics referenced) {
+        if (dependent.distinctCount == 0)
+            return true;
+        if (dependent.distinctCount > referenced.distinctCount)
+            return false;
+        // Numbers only ever equal numbers, so both kinds of values must fit into their counterparts separately
+        if (dependent.numberCount > referenced.numberCount || dependent.distinctCount - dependent.numberCount > referenced.distinctCount - referenced.numberCount)
+            return false;
+        if (dependent.nullCount > 0 && referenced.nullCount == 0)
+            return false;
+        if (dependent.min != null && (referenced.min == null || dependent.min.compareTo(referenced.min) < 0 || dependent.max.compareTo(referenced.max) > 0))
+            return false;
+        return dependent.maxLength <= referenced.maxLength && referenced.type.accommodates(dependent.type);
+    }
+}
@@ -0,0 +1,152 @@
+package de.ddm.structures;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The sorted value ids of an attribute, held either on the heap or, if the attribute's values were spilled, in a
+ * compressed spill file that is only read when the column is shipped. Spill files store the differences between
+ * neighbouring ids, which are small and compress well.
+ */
+public class EncodedColumn {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int PARTITION_BUFFER_SIZE = 1 << 12;  // Partitioning keeps many writers open at once
+
+    private final int[] ids;            // Null if the column is spilled
+    private final File file;            // Null if the column is on the heap
+    private final int size;
+
+    public EncodedColumn(int[] ids) {
+        this.ids = ids;
+        this.file = null;
+        this.size = ids.length;
+    }
+
+    private EncodedColumn(File file, int size) {
+        this.ids = null;
+        this.file = file;
+        this.size = size;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isSpilled() {
+        return this.file != null;
+    }
+
+    // Returns the ids, which are read from the spill file on every call if the column is spilled
+    public int[] ids() throws IOException {
+        if (!this.isSpilled())
+            return this.ids;
+        int[] ids = new int[this.size];
+        Inflater inflater = new Inflater();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(this.file), inflater, BUFFER_SIZE), BUFFER_SIZE))) {
+            int previous = 0;
+            for (int i = 0; i < ids.length; i++) {
+                previous += input.readInt();
+                ids[i] = previous;
+            }
+        } finally {
+            inflater.end();
+        }
+        return ids;
+    }
+
+    public void delete() {
+        if (this.isSpilled())
+            this.file.delete();
+    }
+
+    // Splits the ids by id % numPartitions, so that consecutive ids spread evenly and each partition stays sorted; the partitions of
+    // a spilled column are written into new spill files in the given directory without reading the column into memory
+    public List<EncodedColumn> partition(File directory, int numPartitions) throws IOException {
+        List<EncodedColumn> partitions = new ArrayList<>(numPartitions);
+        if (!this.isSpilled()) {
+            int[] sizes = new int[numPartitions];
+            for (int id : this.ids)
+                sizes[id % numPartitions]++;
+            int[][] buckets = new int[numPartitions][];
+            for (int partition = 0; partition < numPartitions; partition++)
+                buckets[partition] = new int[sizes[partition]];
+            int[] positions = new int[numPartitions];
+            for (int id : this.ids)
+                buckets[id % numPartitions][positions[id % numPartitions]++] = id;
+            for (int[] bucket : buckets)
+                partitions.add(new EncodedColumn(bucket));
+            return partitions;
+        }
+
+        List<Writer> writers = new ArrayList<>(numPartitions);
+        Inflater inflater = new Inflater();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(this.file), inflater, BUFFER_SIZE), BUFFER_SIZE))) {
+            for (int partition = 0; partition < numPartitions; partition++)
+                writers.add(new Writer(directory, PARTITION_BUFFER_SIZE));
+            int id = 0;
+            for (int i = 0; i < this.size; i++) {
+                id += input.readInt();
+                writers.get(id % numPartitions).write(id);
+            }
+            for (Writer writer : writers)
+                partitions.add(writer.toColumn());
+            return partitions;
+        } finally {
+            inflater.end();
+            for (Writer writer : writers)
+                writer.close();
+        }
+    }
+
+    ////////////////////
+    // Spilling       //
+    ////////////////////
+
+    // Writes ascending ids into a new spill file, so that a column that does not fit into memory is never materialized
+    static class Writer implements Closeable {
+        private final File file;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DataOutputStream output;
+        private int previous = 0;
+        private int size = 0;
+        private boolean closed = false;
+
+        Writer(File directory) throws IOException {
+            this(directory, BUFFER_SIZE);
+        }
+
+        private Writer(File directory, int bufferSize) throws IOException {
+            this.file = File.createTempFile("encoded", ".run", directory);
+            this.output = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(this.file), this.deflater, bufferSize), bufferSize));
+        }
+
+        void write(int id) throws IOException {
+            this.output.writeInt(id - this.previous);
+            this.previous = id;
+            this.size++;
+        }
+
+        EncodedColumn toColumn() throws IOException {
+            this.close();
+            return new EncodedColumn(this.file, this.size);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed)
+                return;
+            this.closed = true;
+            try {
+                this.output.close();
+            } finally {
+                this.deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package de.ddm.structures;
+
+import java.util.*;
+
+/**
+ * Collects the validated INDs and non-INDs of a level and derives what follows from them by transitivity: A ⊆ B and
+ * B ⊆ C imply A ⊆ C, A ⊆ B and A ⊈ C imply B ⊈ C, and A ⊈ C and B ⊆ C imply A ⊈ B. Every fact that is added or
+ * derived is reported once by pollValid() or pollInvalid(), so that the caller can drop the candidates it decides.
+ */
+public class InclusionGraph {
+
+    private final Map<Integer, Set<Integer>> included = new HashMap<>();       // The attributes that include each attribute
+    private final Map<Integer, Set<Integer>> including = new HashMap<>();      // The attributes that each attribute includes
+    private final Map<Integer, Set<Integer>> notIncluded = new HashMap<>();    // The attributes that do not include each attribute
+    private final Map<Integer, Set<Integer>> notIncluding = new HashMap<>();   // The attributes that each attribute does not include
+    private final Deque<Candidate> pendingValid = new ArrayDeque<>();
+    private final Deque<Candidate> pendingInvalid = new ArrayDeque<>();
+    private List<Candidate> valid = new ArrayList<>();
+    private List<Candidate> invalid = new ArrayList<>();
+
+    public void add(Collection<Candidate> valid, Collection<Candidate> invalid) {
+        for (Candidate candidate : valid)
+            this.addValid(candidate.getDependent(), candidate.getReferenced());
+        for (Candidate candidate : invalid)
+            this.addInvalid(candidate.getDependent(), candidate.getReferenced());
+
+        while (!this.pendingValid.isEmpty() || !this.pendingInvalid.isEmpty()) {
+            Candidate ind = this.pendingValid.poll();
+            if (ind != null) {
+                int a = ind.getDependent(), b = ind.getReferenced();
+                for (int c : get(this.included, b))
+                    this.addValid(a, c);
+                for (int x : get(this.including, a))
+                    this.addValid(x, b);
+                for (int c : get(this.notIncluded, a))
+                    this.addInvalid(b, c);
+                for (int x : get(this.notIncluding, b))
+                    this.addInvalid(x, a);
+                continue;
+            }
+            Candidate nonInd = this.pendingInvalid.poll();
+            int a = nonInd.getDependent(), c = nonInd.getReferenced();
+            for (int b : get(this.included, a))
+                this.addInvalid(b, c);
+            for (int b : get(this.including, c))
+                this.addInvalid(a, b);
+        }
+    }
+
+    // Returns the INDs that were added or derived since the last call
+    public List<Candidate> pollValid() {
+        List<Candidate> valid = this.valid;
+        this.valid = new ArrayList<>();
+        return valid;
+    }
+
+    // Returns the non-INDs that were added or derived since the last call
+    public List<Candidate> pollInvalid() {
+        List<Candidate> invalid = this.invalid;
+        this.invalid = new ArrayList<>();
+        return invalid;
+    }
+
+    private void addValid(int dependent, int referenced) {
+        if (dependent == referenced || !this.included.computeIfAbsent(dependent, key -> new HashSet<>()).add(referenced))
+            return;
+        this.including.computeIfAbsent(referenced, key -> new HashSet<>()).add(dependent);
+        Candidate ind = new Candidate(dependent, referenced);
+        this.pendingValid.add(ind);
+        this.valid.add(ind);
+    }
+
+    private void addInvalid(int dependent, int referenced) {
+        if (dependent == referenced || !this.notIncluded.computeIfAbsent(dependent, key -> new HashSet<>()).add(referenced))
+            return;
+        this.notIncluding.computeIfAbsent(referenced, key -> new HashSet<>()).add(dependent);
+        Candidate nonInd = new Candidate(dependent, referenced);
+        this.pendingInvalid.add(nonInd);
+        this.invalid.add(nonInd);
+    }
+
+    private static Set<Integer> get(Map<Integer, Set<Integer>> edges, int attribute) {
+        return edges.getOrDefault(attribute, Collections.emptySet());
+    }
+}
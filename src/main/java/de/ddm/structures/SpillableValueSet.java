@@ -0,0 +1,92 @@
+package de.ddm.structures;
+
+import de.ddm.validation.SortedMergeValidator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the distinct values of one attribute, numbers in a primitive set and all other values in a hash set, until
+ * the owner's memory budget makes it spill the sets as a sorted run to disk; finishing the set merges all runs into one
+ * sorted column that stays on disk if any run was spilled.
+ */
+public class SpillableValueSet {
+
+    private static final long NUMBER_SIZE = 16;     // A table slot of the primitive set at its maximum load factor
+
+    private LongOpenHashSet numbers = new LongOpenHashSet();
+    private Set<String> values = new HashSet<>();
+    private final List<Column> runs = new ArrayList<>();
+    private long estimatedBytes = 0;
+
+    // Returns the estimated number of heap bytes that the newly added values occupy
+    public long addAll(String[] values) {
+        long bytes = 0;
+        for (String value : values)
+            if (this.values.add(value))
+                bytes += sizeOf(value);
+        this.estimatedBytes += bytes;
+        return bytes;
+    }
+
+    public long addAll(long[] numbers) {
+        long bytes = 0;
+        for (long number : numbers)
+            if (this.numbers.add(number))
+                bytes += NUMBER_SIZE;
+        this.estimatedBytes += bytes;
+        return bytes;
+    }
+
+    public long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    // Writes the values held in memory as a sorted run and returns the number of heap bytes that this releases
+    public long spill(File directory) throws IOException {
+        long bytes = this.estimatedBytes;
+        this.runs.add(Column.write(directory, this.sortedNumbers(), this.sorted()));
+        this.numbers = new LongOpenHashSet();
+        this.values = new HashSet<>();
+        this.estimatedBytes = 0;
+        return bytes;
+    }
+
+    public Column finish(File directory) throws IOException {
+        Column column = new Column(this.sortedNumbers(), this.sorted());
+        this.numbers = null;
+        this.values = null;
+        if (this.runs.isEmpty())
+            return column;
+
+        this.runs.add(column);
+        Column merged = Column.merge(directory, this.runs);
+        for (Column run : this.runs)
+            run.delete();
+        this.runs.clear();
+        return merged;
+    }
+
+    private long[] sortedNumbers() {
+        long[] sorted = this.numbers.toLongArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private String[] sorted() {
+        String[] sorted = this.values.toArray(new String[0]);
+        Arrays.sort(sorted, SortedMergeValidator.VALUE_ORDER);
+        return sorted;
+    }
+
+    // A string's header, array and Latin-1 characters plus the hash set's node and table slot
+    private static long sizeOf(String value) {
+        return value == null ? 40 : 88 + value.length();
+    }
+}
@@ -0,0 +1,120 @@
+package de.ddm.structures;
+
+import de.ddm.validation.SortedMergeValidator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Encodes the values of all attributes with one dictionary: every distinct value gets its rank among all values of all
+ * attributes as id, where numbers rank before all other values. Because the ids preserve the order of the columns, the
+ * encoded columns are sorted int arrays, and because no task ever needs the values themselves, the dictionary is never
+ * materialized. Spilled columns are encoded into spill files as their values stream past, so that they never occupy the heap.
+ */
+public class ValueDictionary {
+
+    // Merges the sorted columns of all attributes and returns each attribute's values as ids, which stay in the given directory for
+    // spilled columns; spilled columns are deleted afterwards
+    public static Map<Integer, EncodedColumn> encode(Map<Integer, Column> attributeValues, File directory) throws IOException {
+        Map<Integer, EncodedColumn> encodedValues = new HashMap<>();
+        List<Cursor> opened = new ArrayList<>(attributeValues.size());
+        PriorityQueue<Cursor> numberCursors = new PriorityQueue<>(Math.max(1, attributeValues.size()), Comparator.comparingLong(cursor -> cursor.currentNumber));
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, attributeValues.size()), (c1, c2) -> SortedMergeValidator.VALUE_ORDER.compare(c1.current, c2.current));
+        try {
+            for (Map.Entry<Integer, Column> column : attributeValues.entrySet()) {
+                Cursor cursor = column.getValue().isSpilled()
+                        ? new Cursor(column.getKey(), column.getValue().reader(), null, new EncodedColumn.Writer(directory))
+                        : new Cursor(column.getKey(), column.getValue().reader(), new int[column.getValue().size()], null);
+                opened.add(cursor);
+                if (cursor.advanceNumber())
+                    numberCursors.add(cursor);
+            }
+
+            int id = -1;
+            boolean first = true;
+            long lastNumber = 0;
+            while (!numberCursors.isEmpty()) {
+                Cursor cursor = numberCursors.poll();
+                if (first || lastNumber != cursor.currentNumber)
+                    id++;
+                first = false;
+                lastNumber = cursor.currentNumber;
+                cursor.put(id);
+                if (cursor.advanceNumber())
+                    numberCursors.add(cursor);
+            }
+
+            for (Cursor cursor : opened)
+                if (cursor.advance())
+                    cursors.add(cursor);
+
+            first = true;
+            String last = null;
+            while (!cursors.isEmpty()) {
+                Cursor cursor = cursors.poll();
+                if (first || !Objects.equals(last, cursor.current))
+                    id++;
+                first = false;
+                last = cursor.current;
+                cursor.put(id);
+                if (cursor.advance())
+                    cursors.add(cursor);
+            }
+
+            for (Cursor cursor : opened)
+                encodedValues.put(cursor.attribute, cursor.writer == null ? new EncodedColumn(cursor.ids) : cursor.writer.toColumn());
+        } finally {
+            for (Cursor cursor : opened) {
+                cursor.reader.close();
+                if (cursor.writer != null)
+                    cursor.writer.close();
+            }
+        }
+
+        for (Column column : attributeValues.values())
+            column.delete();
+        return encodedValues;
+    }
+
+    private static class Cursor {
+        private final int attribute;
+        private final Column.Reader reader;
+        private final int[] ids;                        // Null if the ids go into a spill file
+        private final EncodedColumn.Writer writer;      // Null if the ids stay on the heap
+        private int position = -1;
+        private long currentNumber;
+        private String current;
+
+        Cursor(int attribute, Column.Reader reader, int[] ids, EncodedColumn.Writer writer) {
+            this.attribute = attribute;
+            this.reader = reader;
+            this.ids = ids;
+            this.writer = writer;
+        }
+
+        // Assigns the id of the current value, whose position only ever grows
+        void put(int id) throws IOException {
+            if (this.writer != null)
+                this.writer.write(id);
+            else
+                this.ids[this.position] = id;
+        }
+
+        boolean advanceNumber() throws IOException {
+            if (!this.reader.hasNextNumber())
+                return false;
+            this.currentNumber = this.reader.nextNumber();
+            this.position++;
+            return true;
+        }
+
+        boolean advance() throws IOException {
+            if (!this.reader.hasNext())
+                return false;
+            this.current = this.reader.next();
+            this.position++;
+            return true;
+        }
+    }
+}
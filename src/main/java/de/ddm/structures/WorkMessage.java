@@ -1,39 +1,47 @@
 package de.ddm.structures;
 
 import de.ddm.serialization.AkkaSerializable;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Getter
 @NoArgsConstructor
+@AllArgsConstructor
 public class WorkMessage implements AkkaSerializable {
-    List<String[]> content;
-    private int id;
-    private String[] head;
+    private List<Candidate> candidates;
+    private Map<Integer, Integer> attributeColumns;     // The id of the column that holds the values of each attribute
+    private Map<Integer, IntBuffer> attributeValues;    // The sorted value ids of each attribute; only present once a worker resolved the columns
 
-
-    public WorkMessage(List<String[]> content, int id, String[] head) {
-        this.content = content;
-        this.id = id;
-        this.head = head;
-    }
-
-
-    public String col(int index) {
-        return head[index];
-    }
-
-    public String elem(int row, int col) {
-        return content.get(row)[col];
+    public IntBuffer values(int attribute) {
+        return attributeValues.get(attribute);
     }
 
-    public int columns() {
-        return head.length;
+    // Drops all candidates that are not contained in the given set and the columns of attributes that no remaining candidate needs
+    public WorkMessage restrictTo(Set<Candidate> remainingCandidates) {
+        List<Candidate> candidates = new ArrayList<>();
+        Map<Integer, Integer> attributeColumns = new HashMap<>();
+        for (Candidate candidate : this.candidates) {
+            if (remainingCandidates.contains(candidate)) {
+                candidates.add(candidate);
+                attributeColumns.put(candidate.getDependent(), this.attributeColumns.get(candidate.getDependent()));
+                attributeColumns.put(candidate.getReferenced(), this.attributeColumns.get(candidate.getReferenced()));
+            }
+        }
+        return new WorkMessage(candidates, attributeColumns, null);
     }
 
-    public int rows() {
-        return content.size();
+    public WorkMessage withValues(Map<Integer, IntBuffer> columns) {
+        Map<Integer, IntBuffer> attributeValues = new HashMap<>();
+        for (Map.Entry<Integer, Integer> attributeColumn : this.attributeColumns.entrySet())
+            attributeValues.put(attributeColumn.getKey(), columns.get(attributeColumn.getValue()));
+        return new WorkMessage(this.candidates, this.attributeColumns, attributeValues);
     }
 }
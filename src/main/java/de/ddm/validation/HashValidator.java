@@ -0,0 +1,58 @@
+package de.ddm.validation;
+
+import de.ddm.structures.Candidate;
+import de.ddm.structures.WorkMessage;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * Validates candidates by probing the value ids of each dependent attribute in an open-addressing set of the referenced
+ * attribute's ids; the set is reused across referenced attributes and tasks, and a dependent attribute is refuted at its
+ * first missing id.
+ */
+public class HashValidator {
+
+    private final IntOpenHashSet referencedValues = new IntOpenHashSet();
+    private int tableSize = 0;      // The most ids that the set held since its table was last sized down
+
+    public List<Candidate> inclusionDependencies(WorkMessage work) {
+        Map<Integer, List<Candidate>> candidatesByReferenced = new HashMap<>();
+        for (Candidate candidate : work.getCandidates())
+            candidatesByReferenced.computeIfAbsent(candidate.getReferenced(), referenced -> new ArrayList<>()).add(candidate);
+
+        List<Candidate> ans = new ArrayList<>();
+        for (Map.Entry<Integer, List<Candidate>> group : candidatesByReferenced.entrySet()) {
+            IntBuffer referenced = work.values(group.getKey());
+            this.load(referenced);
+
+            for (Candidate candidate : group.getValue()) {
+                IntBuffer dependent = work.values(candidate.getDependent());
+                // Both attributes hold distinct values, so a dependent attribute with more values cannot be included
+                if (dependent.limit() <= referenced.limit() && this.containsAll(dependent))
+                    ans.add(candidate);
+            }
+        }
+        return ans;
+    }
+
+    // Clearing costs time proportional to the table's size, so the table shrinks again after a much larger attribute
+    private void load(IntBuffer values) {
+        this.referencedValues.clear();
+        if (values.limit() < this.tableSize / 8) {
+            this.referencedValues.trim(values.limit());
+            this.tableSize = 0;
+        }
+        this.tableSize = Math.max(this.tableSize, values.limit());
+        for (int i = 0; i < values.limit(); i++)
+            this.referencedValues.add(values.get(i));
+    }
+
+    private boolean containsAll(IntBuffer values) {
+        for (int i = 0; i < values.limit(); i++)
+            if (!this.referencedValues.contains(values.get(i)))
+                return false;
+        return true;
+    }
+}
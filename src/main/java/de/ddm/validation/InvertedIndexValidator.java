@@ -0,0 +1,62 @@
+package de.ddm.validation;
+
+import de.ddm.structures.Candidate;
+import de.ddm.structures.WorkMessage;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+public class InvertedIndexValidator {
+
+    // Indexes the attributes that contain each value and intersects these attribute sets for every value of a dependent attribute,
+    // so that the cost depends on the number of values and not on the number of candidates
+    public static List<Candidate> inclusionDependencies(WorkMessage work) {
+        List<Integer> attributes = new ArrayList<>(work.getAttributeValues().keySet());
+        Map<Integer, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < attributes.size(); i++)
+            indexes.put(attributes.get(i), i);
+
+        // For every dependent attribute, the referenced attributes that contained all of its values so far
+        BitSet[] referenced = new BitSet[attributes.size()];
+        boolean[] isReferenced = new boolean[attributes.size()];
+        for (Candidate candidate : work.getCandidates()) {
+            int dependent = indexes.get(candidate.getDependent());
+            if (referenced[dependent] == null)
+                referenced[dependent] = new BitSet(attributes.size());
+            referenced[dependent].set(indexes.get(candidate.getReferenced()));
+            isReferenced[indexes.get(candidate.getReferenced())] = true;
+        }
+
+        Int2ObjectOpenHashMap<BitSet> attributesByValue = new Int2ObjectOpenHashMap<>();
+        for (int i = 0; i < attributes.size(); i++) {
+            if (!isReferenced[i])
+                continue;
+            IntBuffer values = work.values(attributes.get(i));
+            for (int j = 0; j < values.limit(); j++) {
+                BitSet valueAttributes = attributesByValue.get(values.get(j));
+                if (valueAttributes == null)
+                    attributesByValue.put(values.get(j), valueAttributes = new BitSet(attributes.size()));
+                valueAttributes.set(i);
+            }
+        }
+
+        BitSet none = new BitSet();
+        for (int i = 0; i < attributes.size(); i++) {
+            if (referenced[i] == null)
+                continue;
+            IntBuffer values = work.values(attributes.get(i));
+            for (int j = 0; j < values.limit(); j++) {
+                referenced[i].and(attributesByValue.getOrDefault(values.get(j), none));
+                if (referenced[i].isEmpty())
+                    break;
+            }
+        }
+
+        List<Candidate> ans = new ArrayList<>();
+        for (Candidate candidate : work.getCandidates())
+            if (referenced[indexes.get(candidate.getDependent())].get(indexes.get(candidate.getReferenced())))
+                ans.add(candidate);
+        return ans;
+    }
+}
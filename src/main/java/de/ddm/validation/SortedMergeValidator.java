@@ -0,0 +1,100 @@
+package de.ddm.validation;
+
+import de.ddm.structures.Candidate;
+import de.ddm.structures.WorkMessage;
+import lombok.AllArgsConstructor;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+public class SortedMergeValidator {
+
+    public static final Comparator<String> VALUE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder()); // The order of the values and thus of their dictionary ids
+
+    // Expects the value ids of every attribute to be distinct and sorted
+    public static List<Candidate> inclusionDependencies(WorkMessage work) {
+        List<Integer> attributes = new ArrayList<>(work.getAttributeValues().keySet());
+        Map<Integer, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < attributes.size(); i++)
+            indexes.put(attributes.get(i), i);
+
+        // For every dependent attribute, the referenced attributes that contained all of its values so far
+        BitSet[] referenced = new BitSet[attributes.size()];
+        boolean[] isReferenced = new boolean[attributes.size()];
+        for (Candidate candidate : work.getCandidates()) {
+            int dependent = indexes.get(candidate.getDependent());
+            if (referenced[dependent] == null)
+                referenced[dependent] = new BitSet(attributes.size());
+            referenced[dependent].set(indexes.get(candidate.getReferenced()));
+            isReferenced[indexes.get(candidate.getReferenced())] = true;
+        }
+
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, attributes.size()), (c1, c2) -> Integer.compare(c1.current(), c2.current()));
+        int activeDependents = 0;
+        for (int i = 0; i < attributes.size(); i++) {
+            IntBuffer values = work.values(attributes.get(i));
+            boolean dependent = referenced[i] != null;
+            if (values.limit() == 0 || !(dependent || isReferenced[i]))
+                continue;
+            cursors.add(new Cursor(i, values, 0, dependent));
+            if (dependent)
+                activeDependents++;
+        }
+
+        List<Cursor> group = new ArrayList<>();
+        BitSet groupAttributes = new BitSet(attributes.size());
+        while (activeDependents > 0) {
+            Cursor first = cursors.poll();
+            group.add(first);
+            while (!cursors.isEmpty() && cursors.peek().current() == first.current())
+                group.add(cursors.poll());
+
+            for (Cursor cursor : group)
+                groupAttributes.set(cursor.attribute);
+
+            for (Cursor cursor : group) {
+                if (cursor.dependent) {
+                    referenced[cursor.attribute].and(groupAttributes);
+                    if (referenced[cursor.attribute].isEmpty()) {
+                        cursor.dependent = false;
+                        activeDependents--;
+                    }
+                }
+                if (!cursor.advance()) {
+                    if (cursor.dependent) {
+                        cursor.dependent = false;
+                        activeDependents--;
+                    }
+                    continue;
+                }
+                if (cursor.dependent || isReferenced[cursor.attribute])
+                    cursors.add(cursor);
+            }
+
+            group.clear();
+            groupAttributes.clear();
+        }
+
+        List<Candidate> ans = new ArrayList<>();
+        for (Candidate candidate : work.getCandidates())
+            if (referenced[indexes.get(candidate.getDependent())].get(indexes.get(candidate.getReferenced())))
+                ans.add(candidate);
+        return ans;
+    }
+
+    @AllArgsConstructor
+    private static class Cursor {
+        private final int attribute;
+        private final IntBuffer values;
+        private int position;
+        private boolean dependent;
+
+        int current() {
+            return this.values.get(this.position);
+        }
+
+        boolean advance() {
+            return ++this.position < this.values.limit();
+        }
+    }
+}
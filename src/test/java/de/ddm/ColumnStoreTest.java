@@ -0,0 +1,139 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.actor.typed.ActorRef;
+import de.ddm.actors.profiling.ColumnStore;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ColumnStoreTest {
+
+    @ClassRule
+    public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
+
+    // The store holds two columns of 100 ids, which are about 400 bytes each, in an arena of one slab
+    private static final long CAPACITY = 1024;
+    private static final int COLUMN_SIZE = 100;
+
+    private final TestProbe<DependencyMiner.Message> miner = testKit.createTestProbe();
+    private final ActorRef<ColumnStore.Message> columnStore = testKit.spawn(ColumnStore.create(CAPACITY, CAPACITY));
+
+    @Test
+    public void testLeastRecentlyUsedColumnsAreEvicted() {
+        TestProbe<DependencyWorker.Message> worker = testKit.createTestProbe();
+
+        this.fetch(worker, 0);
+        this.release(worker);
+        this.fetch(worker, 1);
+        this.release(worker);
+        this.get(worker, 0);        // Column 0 is now used more recently than column 1
+        this.release(worker);
+
+        this.fetch(worker, 2);
+        this.release(worker);
+
+        this.get(worker, 0);
+        this.release(worker);
+        this.fetch(worker, 1);
+        this.release(worker);
+    }
+
+    @Test
+    public void testPinnedColumnsStay() {
+        TestProbe<DependencyWorker.Message> worker = testKit.createTestProbe();
+        TestProbe<DependencyWorker.Message> otherWorker = testKit.createTestProbe();
+
+        // The worker does not release column 0, which is the least recently used one
+        this.fetch(worker, 0);
+        this.fetch(otherWorker, 1);
+        this.release(otherWorker);
+        this.fetch(otherWorker, 2);
+        this.release(otherWorker);
+
+        this.get(otherWorker, 0);
+        this.release(otherWorker);
+        this.fetch(otherWorker, 1);
+        this.release(otherWorker);
+        this.release(worker);
+    }
+
+    @Test
+    public void testReleaseDropsPendingRequests() {
+        TestProbe<DependencyWorker.Message> deadWorker = testKit.createTestProbe();
+        TestProbe<DependencyWorker.Message> worker = testKit.createTestProbe();
+
+        // The miner releases a terminated worker's columns while its request still waits for them
+        this.columnStore.tell(new ColumnStore.GetColumnsMessage(deadWorker.getRef(), this.miner.getRef(), Collections.singletonList(0)));
+        assertEquals(Collections.singletonList(0), this.miner.expectMessageClass(DependencyMiner.ColumnRequestMessage.class).getColumnIds());
+        this.release(deadWorker);
+        this.columnStore.tell(new ColumnStore.ColumnsMessage(Collections.singletonMap(0, column(0))));
+        deadWorker.expectNoMessage();
+
+        // So the column is not pinned, and the least recently used column goes first
+        this.fetch(worker, 1);
+        this.release(worker);
+        this.fetch(worker, 2);
+        this.release(worker);
+        this.get(worker, 1);
+        this.release(worker);
+        this.fetch(worker, 0);
+        this.release(worker);
+    }
+
+    // Requests columns that the store must fetch from the miner first
+    private void fetch(TestProbe<DependencyWorker.Message> worker, Integer... columnIds) {
+        List<Integer> ids = Arrays.asList(columnIds);
+        this.columnStore.tell(new ColumnStore.GetColumnsMessage(worker.getRef(), this.miner.getRef(), ids));
+        assertEquals(ids, this.miner.expectMessageClass(DependencyMiner.ColumnRequestMessage.class).getColumnIds());
+
+        Map<Integer, int[]> columns = new HashMap<>();
+        for (int columnId : ids)
+            columns.put(columnId, column(columnId));
+        this.columnStore.tell(new ColumnStore.ColumnsMessage(columns));
+        this.expectColumns(worker, ids);
+    }
+
+    // Requests columns that the store still holds
+    private void get(TestProbe<DependencyWorker.Message> worker, Integer... columnIds) {
+        List<Integer> ids = Arrays.asList(columnIds);
+        this.columnStore.tell(new ColumnStore.GetColumnsMessage(worker.getRef(), this.miner.getRef(), ids));
+        this.expectColumns(worker, ids);
+        this.miner.expectNoMessage();
+    }
+
+    private void release(TestProbe<DependencyWorker.Message> worker) {
+        this.columnStore.tell(new ColumnStore.ReleaseColumnsMessage(worker.getRef()));
+    }
+
+    private void expectColumns(TestProbe<DependencyWorker.Message> worker, List<Integer> columnIds) {
+        Map<Integer, IntBuffer> columns = worker.expectMessageClass(DependencyWorker.ColumnsMessage.class).getColumns();
+        assertEquals(columnIds.size(), columns.size());
+        for (int columnId : columnIds) {
+            IntBuffer values = columns.get(columnId);
+            int[] ids = new int[values.limit()];
+            values.duplicate().get(ids);
+            assertArrayEquals(column(columnId), ids);
+        }
+    }
+
+    private static int[] column(int columnId) {
+        int[] ids = new int[COLUMN_SIZE];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = columnId * COLUMN_SIZE + i;
+        return ids;
+    }
+}
@@ -0,0 +1,174 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.actor.typed.javadsl.Adapter;
+import akka.serialization.SerializationExtension;
+import akka.serialization.Serializer;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.profiling.ColumnStore;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.configuration.ValidationStrategy;
+import de.ddm.serialization.ColumnarSerializer;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import de.ddm.structures.Candidate;
+import de.ddm.structures.WorkMessage;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.NotSerializableException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarSerializerTest {
+
+    @ClassRule
+    public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
+
+    private static final String LONG_UTF8 = "Straße, Ünïcödé und € im Text, der länger ist als ein Byte Länge 𝄞";
+
+    @Test
+    public void testBatchMessage() throws NotSerializableException {
+        String[][] columns = {
+                {},
+                {"a", null, "", "null"},
+                {"äöü", "€", "𝄞", "日本語", LONG_UTF8, null}
+        };
+        long[][] numbers = {
+                {},
+                {Long.MIN_VALUE, Long.MIN_VALUE + 20240101, -1, 0, 1, Long.MAX_VALUE - 1},
+                {Long.MAX_VALUE, Long.MIN_VALUE, 42, -42, 0}      // Unsorted, so that the deltas are negative and overflow
+        };
+        DependencyMiner.BatchMessage message = new DependencyMiner.BatchMessage(7, 3, columns, numbers, true);
+
+        DependencyMiner.BatchMessage copy = roundTrip(message);
+
+        assertEquals(7, copy.getId());
+        assertEquals(3, copy.getReader());
+        assertArrayEquals(columns, copy.getColumns());
+        assertEquals(numbers.length, copy.getNumbers().length);
+        for (int i = 0; i < numbers.length; i++)
+            assertArrayEquals(numbers[i], copy.getNumbers()[i]);
+        assertTrue(copy.isLastBatch());
+    }
+
+    @Test
+    public void testEmptyBatchMessage() throws NotSerializableException {
+        DependencyMiner.BatchMessage message = new DependencyMiner.BatchMessage(0, 0, new String[0][], new long[0][], false);
+
+        DependencyMiner.BatchMessage copy = roundTrip(message);
+
+        assertEquals(0, copy.getColumns().length);
+        assertEquals(0, copy.getNumbers().length);
+        assertFalse(copy.isLastBatch());
+    }
+
+    @Test
+    public void testTaskMessage() throws NotSerializableException {
+        TestProbe<LargeMessageProxy.Message> proxy = testKit.createTestProbe();
+        TestProbe<DependencyMiner.Message> miner = testKit.createTestProbe();
+        List<Candidate> candidates = Arrays.asList(new Candidate(0, 1), new Candidate(1, 0), new Candidate(300, 2));
+        Map<Integer, Integer> attributeColumns = new HashMap<>();
+        attributeColumns.put(0, 5);
+        attributeColumns.put(1, 0);
+        attributeColumns.put(300, 70000);
+        attributeColumns.put(2, 1);
+
+        for (ValidationStrategy strategy : ValidationStrategy.values()) {
+            DependencyWorker.TaskMessage message = new DependencyWorker.TaskMessage(proxy.getRef(), miner.getRef(), new WorkMessage(candidates, attributeColumns, null), strategy);
+
+            DependencyWorker.TaskMessage copy = roundTrip(message);
+
+            assertEquals(proxy.getRef().path(), copy.getDependencyMinerLargeMessageProxy().path());
+            assertEquals(miner.getRef().path(), copy.getDependencyMiner().path());
+            assertEquals(candidates, copy.getWork().getCandidates());
+            assertEquals(attributeColumns, copy.getWork().getAttributeColumns());
+            assertEquals(strategy, copy.getValidationStrategy());
+        }
+    }
+
+    @Test
+    public void testCompletionMessage() throws NotSerializableException {
+        TestProbe<DependencyWorker.Message> worker = testKit.createTestProbe();
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            candidates.add(new Candidate(i * 1000, 199 - i));
+
+        DependencyMiner.CompletionMessage copy = roundTrip(new DependencyMiner.CompletionMessage(worker.getRef(), candidates));
+
+        assertEquals(worker.getRef().path(), copy.getDependencyWorker().path());
+        assertEquals(candidates, copy.getDep());
+
+        DependencyMiner.CompletionMessage emptyCopy = roundTrip(new DependencyMiner.CompletionMessage(worker.getRef(), Collections.emptyList()));
+
+        assertEquals(Collections.emptyList(), emptyCopy.getDep());
+    }
+
+    @Test
+    public void testColumnsMessage() throws NotSerializableException {
+        Map<Integer, int[]> columns = new HashMap<>();
+        columns.put(0, new int[0]);
+        columns.put(1, new int[]{0, 1, 2, 127, 128, 16384, Integer.MAX_VALUE});
+        columns.put(2, new int[]{Integer.MAX_VALUE, 0, 5, 3, Integer.MIN_VALUE, -1});    // Negative deltas that overflow
+        columns.put(1 << 20, new int[]{42});
+
+        ColumnStore.ColumnsMessage copy = roundTrip(new ColumnStore.ColumnsMessage(columns));
+
+        assertEquals(columns.keySet(), copy.getColumns().keySet());
+        for (Map.Entry<Integer, int[]> column : columns.entrySet())
+            assertArrayEquals(column.getValue(), copy.getColumns().get(column.getKey()));
+    }
+
+    @Test
+    public void testByteBufferRoundTrip() throws NotSerializableException {
+        ColumnarSerializer serializer = serializer(new DependencyMiner.BatchMessage());
+        String[][] columns = {{"x", null, LONG_UTF8}};
+        long[][] numbers = {{Long.MIN_VALUE, Long.MAX_VALUE}};
+        DependencyMiner.BatchMessage message = new DependencyMiner.BatchMessage(1, 2, columns, numbers, false);
+
+        // The message sits behind other bytes in a slice, so that the buffer's array offset and position matter
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.put(new byte[]{-1, -1, -1});
+        ByteBuffer slice = buffer.slice();
+        slice.put(new byte[]{-2});
+        serializer.toBinary(message, slice);
+        slice.put(new byte[]{-3});
+        slice.flip();
+        slice.get();
+
+        DependencyMiner.BatchMessage copy = (DependencyMiner.BatchMessage) serializer.fromBinary(slice, serializer.manifest(message));
+
+        assertArrayEquals(columns, copy.getColumns());
+        assertArrayEquals(numbers[0], copy.getNumbers()[0]);
+        assertEquals(1, slice.remaining());
+        assertEquals(-3, slice.get());
+    }
+
+    @Test(expected = NotSerializableException.class)
+    public void testUnknownManifest() throws NotSerializableException {
+        serializer(new DependencyMiner.BatchMessage()).fromBinary(new byte[0], "X");
+    }
+
+    private static ColumnarSerializer serializer(Object message) {
+        Serializer serializer = SerializationExtension.get(Adapter.toClassic(testKit.system())).findSerializerFor(message);
+        assertTrue(serializer instanceof ColumnarSerializer);
+        return (ColumnarSerializer) serializer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T message) throws NotSerializableException {
+        ColumnarSerializer serializer = serializer(message);
+        return (T) serializer.fromBinary(serializer.toBinary(message), serializer.manifest(message));
+    }
+}
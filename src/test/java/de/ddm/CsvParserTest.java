@@ -0,0 +1,266 @@
+package de.ddm;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvException;
+import de.ddm.input.CsvParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CsvParserTest {
+
+    private static final int BUFFER_SIZE = 1 << 20;     // The parser's buffer size
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testQuotedSeparators() throws Exception {
+        Path path = this.write("a;\"b;c\";d\n\"\";\";\";\"x;\"\n");
+
+        assertRecords(path, false, false,
+                new String[]{"a", "b;c", "d"},
+                new String[]{"", ";", "x;"});
+    }
+
+    @Test
+    public void testDoubledQuotesAndEscapes() throws Exception {
+        Path path = this.write("\"say \"\"hi\"\"\";\\\"x\\\";a\\;b;\"c\\\\d\";e\\f\n");
+
+        assertRecords(path, false, false,
+                new String[]{"say \"hi\"", "\"x\"", "a;b", "c\\d", "ef"});     // An escape before an ordinary character is dropped
+    }
+
+    @Test
+    public void testStrictQuotes() throws Exception {
+        Path path = this.write("\"a\"b;\"c\" ;d;\"\"\n");
+
+        assertRecords(path, true, false,
+                new String[]{"a", "c", null, ""});
+    }
+
+    @Test
+    public void testIgnoreLeadingWhiteSpace() throws Exception {
+        Path path = this.write("a; \"b\";  \"c\";  d\n");
+
+        assertRecords(path, false, true,
+                new String[]{"a", "b", "c", "  d"});
+        assertRecords(path, false, false,
+                new String[]{"a", " \"b", "  \"c", "  d"});        // Quotes after other characters are kept unless they end the field
+    }
+
+    @Test
+    public void testMultiLineQuotedFields() throws Exception {
+        Path path = this.write("\"line 1\nline 2\";x\r\n\"a\r\nb\r\n\";y\r\"\n\n\";z\n");
+
+        assertRecords(path, false, false,
+                new String[]{"line 1\nline 2", "x"},
+                new String[]{"a\nb\n", "y"},
+                new String[]{"\n\n", "z"});
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnterminatedQuotedField() throws Exception {
+        parse(this.write("a;\"b\nc\n"), false, false, 0);
+    }
+
+    @Test
+    public void testEmptyAndNullFields() throws Exception {
+        Path path = this.write(";\"\";a;\n\n\"\"\n");
+
+        assertRecords(path, false, false,
+                new String[]{null, "", "a", null},
+                new String[]{null},
+                new String[]{""});
+    }
+
+    @Test
+    public void testLineEndings() throws Exception {
+        for (String lineEnd : new String[]{"\n", "\r", "\r\n"}) {
+            Path path = this.write("a;b" + lineEnd + "c" + lineEnd + lineEnd + "d;e");
+
+            assertRecords(path, false, false,
+                    new String[]{"a", "b"},
+                    new String[]{"c"},
+                    new String[]{null},
+                    new String[]{"d", "e"});
+        }
+
+        assertRecords(this.write("a\rb\nc\r\nd\r"), false, false,
+                new String[]{"a"}, new String[]{"b"}, new String[]{"c"}, new String[]{"d"});
+    }
+
+    @Test
+    public void testBufferBoundaries() throws Exception {
+        StringBuilder content = new StringBuilder();
+        // A \r\n whose \r ends the first buffer fill
+        content.append(repeat('x', BUFFER_SIZE - 1)).append("\r\n");
+        // Records of varying lengths, so that fields and quoted line breaks cross the following buffer boundaries
+        Random random = new Random(42);
+        while (content.length() < 3 * BUFFER_SIZE)
+            content.append(repeat('a', random.nextInt(5000))).append(";\"q;").append(repeat('ä', random.nextInt(300))).append("\n\";e\n");
+        // A line that is longer than the buffer
+        content.append(repeat('y', 2 * BUFFER_SIZE + 7)).append(";z\n");
+        Path path = this.write(content.toString());
+
+        List<String[]> records = parse(path, false, false, 0);
+
+        assertEquals(BUFFER_SIZE - 1, records.get(0)[0].length());
+        assertEquals(2 * BUFFER_SIZE + 7, records.get(records.size() - 1)[0].length());
+        assertEquals(asLists(parseWithOpenCsv(path, false, false)), asLists(records));
+    }
+
+    @Test
+    public void testStartOffsets() throws Exception {
+        String content = "h1;h2\na;ä\r\nbb;\"c;c\"\r\rd\n\n€;e\r\nf";
+        Path path = this.write(content);
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        List<Long> lineStarts = new ArrayList<>();
+        lineStarts.add(0L);
+        for (int i = 0; i < bytes.length; i++)
+            if (bytes[i] == '\n' || (bytes[i] == '\r' && (i + 1 == bytes.length || bytes[i + 1] != '\n')))
+                lineStarts.add((long) i + 1);
+        List<List<String>> records = asLists(parse(path, false, false, 0));
+
+        // A parser that starts at an offset reads exactly the lines that begin at or after it
+        for (long start = 0; start <= bytes.length; start++) {
+            int firstLine = 0;
+            while (firstLine < lineStarts.size() && lineStarts.get(firstLine) < start)
+                firstLine++;
+
+            try (CsvParser parser = new CsvParser(path, StandardCharsets.UTF_8, ';', '"', '\\', false, false, start)) {
+                for (int line = firstLine; line < records.size(); line++) {
+                    assertEquals("Start " + start, (long) lineStarts.get(line), parser.getPosition());
+                    assertTrue(parser.next());
+                    assertEquals("Start " + start, records.get(line), Arrays.asList(parser.toArray()));
+                }
+                assertFalse(parser.next());
+                assertEquals(bytes.length, parser.getPosition());
+            }
+        }
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        Path path = this.write("0;-5;123456789012345678;-123456789012345678;\"42\";" +
+                "007;-0;+5;1234567890123456789;1.0; 5;-;5-;;\"\";" +
+                "2024-01-31;\"1999-12-31\";0000-00-00;" +
+                "2024-1-31;20x4-01-31;2024/01/31;2024-01-3x\n");
+        long[] expected = {
+                0, -5, 123456789012345678L, -123456789012345678L, 42,
+                CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER,
+                CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER,
+                Long.MIN_VALUE + 20240131, Long.MIN_VALUE + 19991231, Long.MIN_VALUE,
+                CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER, CsvParser.NOT_A_NUMBER
+        };
+
+        try (CsvParser parser = new CsvParser(path, StandardCharsets.UTF_8, ';', '"', '\\', false, false, 0)) {
+            assertTrue(parser.next());
+            assertEquals(expected.length, parser.size());
+            for (int field = 0; field < expected.length; field++)
+                assertEquals("Field " + field + " " + parser.get(field), expected[field], parser.number(field));
+        }
+    }
+
+    @Test
+    public void testRandomInputsMatchOpenCsv() throws Exception {
+        String[] tokens = {"a", "bc", " ", ";", ",", "\"", "\"\"", "\\", "\n", "\r", "\r\n", "ä", "€", "𝄞"};
+        Random random = new Random(1803);
+
+        for (int document = 0; document < 1000; document++) {
+            StringBuilder content = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int i = 0; i < length; i++)
+                content.append(tokens[random.nextInt(tokens.length)]);
+            Path path = this.write(content.toString());
+
+            for (int settings = 0; settings < 4; settings++) {
+                boolean strictQuotes = (settings & 1) != 0;
+                boolean ignoreLeadingWhiteSpace = (settings & 2) != 0;
+                String message = "Input " + Arrays.toString(content.toString().getBytes(StandardCharsets.UTF_8)) + " strictQuotes " + strictQuotes + " ignoreLeadingWhiteSpace " + ignoreLeadingWhiteSpace;
+
+                List<List<String>> expected;
+                try {
+                    expected = asLists(parseWithOpenCsv(path, strictQuotes, ignoreLeadingWhiteSpace));
+                } catch (IOException e) {
+                    expected = null;        // OpenCSV rejects unterminated quoted fields
+                }
+                try {
+                    List<List<String>> actual = asLists(parse(path, strictQuotes, ignoreLeadingWhiteSpace, 0));
+                    assertEquals(message, expected, actual);
+                } catch (IOException e) {
+                    if (expected != null)
+                        fail(message + " failed with " + e);
+                }
+            }
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path path = this.folder.newFile().toPath();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private static void assertRecords(Path path, boolean strictQuotes, boolean ignoreLeadingWhiteSpace, String[]... expected) throws IOException, CsvException {
+        assertEquals(asLists(Arrays.asList(expected)), asLists(parse(path, strictQuotes, ignoreLeadingWhiteSpace, 0)));
+        assertEquals(asLists(Arrays.asList(expected)), asLists(parseWithOpenCsv(path, strictQuotes, ignoreLeadingWhiteSpace)));
+    }
+
+    private static List<String[]> parse(Path path, boolean strictQuotes, boolean ignoreLeadingWhiteSpace, long start) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        try (CsvParser parser = new CsvParser(path, StandardCharsets.UTF_8, ';', '"', '\\', strictQuotes, ignoreLeadingWhiteSpace, start)) {
+            while (parser.next())
+                records.add(parser.toArray());
+        }
+        return records;
+    }
+
+    // Reads the file the way this project did before it had its own parser
+    private static List<String[]> parseWithOpenCsv(Path path, boolean strictQuotes, boolean ignoreLeadingWhiteSpace) throws IOException, CsvException {
+        CSVParser parser = new CSVParserBuilder()
+                .withSeparator(';')
+                .withQuoteChar('"')
+                .withEscapeChar('\\')
+                .withStrictQuotes(strictQuotes)
+                .withIgnoreLeadingWhiteSpace(ignoreLeadingWhiteSpace)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
+                .build();
+
+        try (CSVReader reader = new CSVReaderBuilder(Files.newBufferedReader(path, StandardCharsets.UTF_8)).withCSVParser(parser).build()) {
+            return reader.readAll();
+        }
+    }
+
+    private static List<List<String>> asLists(List<String[]> records) {
+        List<List<String>> lists = new ArrayList<>(records.size());
+        for (String[] record : records)
+            lists.add(Arrays.asList(record));
+        return lists;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,109 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.javadsl.Behaviors;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.profiling.ColumnStore;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import de.ddm.structures.Candidate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class DependencyMinerTest {
+
+    @ClassRule
+    public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private String inputPath;
+    private Path savedResults;
+
+    // The miner reads the configured input path and its result collector replaces the result file in the working directory
+    @Before
+    public void saveConfiguration() throws IOException {
+        this.inputPath = InputConfigurationSingleton.get().getInputPath();
+        Path results = Paths.get(DomainConfigurationSingleton.get().getResultCollectorOutputFileName());
+        if (Files.exists(results))
+            this.savedResults = Files.copy(results, this.folder.newFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @After
+    public void restoreConfiguration() throws IOException {
+        InputConfigurationSingleton.get().setInputPath(this.inputPath);
+        Path results = Paths.get(DomainConfigurationSingleton.get().getResultCollectorOutputFileName());
+        if (this.savedResults != null)
+            Files.copy(this.savedResults, results, StandardCopyOption.REPLACE_EXISTING);
+        else
+            Files.deleteIfExists(results);
+    }
+
+    @Test
+    public void testCompletionAfterTermination() throws IOException {
+        // Two referenced attributes, so that the candidates form two tasks
+        File input = this.folder.newFolder();
+        this.write(input, "a.csv", "x\n1\n2\n");
+        this.write(input, "b.csv", "y\n1\n2\n3\n");
+        this.write(input, "c.csv", "z\n3\n2\n1\n");
+        InputConfigurationSingleton.get().setInputPath(input.getPath());
+
+        ActorRef<DependencyMiner.Message> miner = testKit.spawn(DependencyMiner.create());
+        miner.tell(new DependencyMiner.StartMessage());
+
+        // The first worker dies as soon as its task arrives, and the miner releases the columns that its node pinned for the task
+        ActorRef<DependencyWorker.Message> deadWorker = testKit.spawn(Behaviors.receiveMessage(message -> Behaviors.stopped()));
+        ActorRef<LargeMessageProxy.Message> deadWorkerProxy = testKit.spawn(LargeMessageProxy.create(deadWorker.unsafeUpcast()));
+        TestProbe<ColumnStore.Message> deadWorkerColumnStore = testKit.createTestProbe();
+        miner.tell(new DependencyMiner.RegistrationMessage(deadWorker, deadWorkerProxy, deadWorkerColumnStore.getRef()));
+        ColumnStore.ReleaseColumnsMessage release = deadWorkerColumnStore.expectMessageClass(ColumnStore.ReleaseColumnsMessage.class);
+        assertEquals(deadWorker, release.getDependencyWorker());
+
+        // Its completion still arrives after the miner saw it terminate and requeued its task
+        miner.tell(new DependencyMiner.CompletionMessage(deadWorker, Collections.emptyList()));
+
+        TestProbe<DependencyWorker.Message> worker = testKit.createTestProbe();
+        ActorRef<LargeMessageProxy.Message> workerProxy = testKit.spawn(LargeMessageProxy.create(worker.getRef().unsafeUpcast()));
+        TestProbe<ColumnStore.Message> workerColumnStore = testKit.createTestProbe();
+        miner.tell(new DependencyMiner.RegistrationMessage(worker.getRef(), workerProxy, workerColumnStore.getRef()));
+
+        Set<Integer> referenced = new HashSet<>();
+        for (int task = 0; task < 2; task++) {
+            DependencyWorker.TaskMessage message = worker.expectMessageClass(DependencyWorker.TaskMessage.class);
+            for (Candidate candidate : message.getWork().getCandidates())
+                referenced.add(candidate.getReferenced());
+            miner.tell(new DependencyMiner.CompletionMessage(worker.getRef(), Collections.emptyList()));
+        }
+        assertEquals(2, referenced.size());
+        worker.expectNoMessage(Duration.ofMillis(200));
+        workerColumnStore.expectNoMessage();
+    }
+
+    private void write(File directory, String name, String content) throws IOException {
+        Files.write(new File(directory, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
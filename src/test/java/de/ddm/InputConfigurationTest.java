@@ -0,0 +1,141 @@
+package de.ddm;
+
+import de.ddm.configuration.InputConfiguration;
+import de.ddm.input.CsvParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InputConfigurationTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final InputConfiguration inputConfiguration = new InputConfiguration();
+
+    @Test
+    public void testRangesSplitInsideQuotedFields() throws IOException {
+        StringBuilder content = new StringBuilder("id;text;value\n");
+        for (int record = 0; record < 5000; record++) {
+            content.append(record).append(";\"");
+            for (int line = 0; line < record % 7; line++)
+                content.append("line ").append(line).append(" of ").append(record).append(";\r\n");
+            content.append("end\";").append(record * 31).append('\n');
+        }
+        File file = this.write(content.toString());
+        List<List<String>> records = this.read(file, 0, Long.MAX_VALUE);
+
+        for (int ranges : new int[]{2, 3, 5, 8, 16, 50}) {
+            long[] starts = this.getRangeStarts(file, ranges, 3);
+
+            assertEquals(0, starts[0]);
+            for (int range = 1; range < ranges; range++)
+                assertTrue("Ranges " + ranges, starts[range] > starts[range - 1]);      // No range had to join its predecessor
+            assertEquals("Ranges " + ranges, records, this.readRanges(file, starts));
+        }
+
+        // Parsers that start at the byte offsets themselves begin in the middle of quoted fields
+        long[] byteOffsets = new long[16];
+        for (int range = 0; range < byteOffsets.length; range++)
+            byteOffsets[range] = file.length() * range / byteOffsets.length;
+        List<List<String>> misaligned;
+        try {
+            misaligned = this.readRanges(file, byteOffsets);
+        } catch (IOException e) {
+            misaligned = null;      // A range may also end in what its parser takes for an unterminated quoted field
+        }
+        assertNotEquals(records, misaligned);
+    }
+
+    @Test
+    public void testRangesWithoutQuotesStartAtLineStarts() throws IOException {
+        StringBuilder content = new StringBuilder("id;value\n");
+        for (int record = 0; record < 20000; record++)
+            content.append(record).append(';').append(record * record).append(record % 2 == 0 ? "\n" : "\r\n");
+        File file = this.write(content.toString());
+        List<Long> lineStarts = new ArrayList<>();
+        for (int i = 0; i < content.length(); i++)
+            if (content.charAt(i) == '\n')
+                lineStarts.add((long) i + 1);
+
+        long[] starts = this.getRangeStarts(file, 8, 2);
+
+        for (int range = 1; range < starts.length; range++) {
+            long offset = file.length() * range / starts.length;
+            long expected = lineStarts.stream().filter(lineStart -> lineStart >= offset).findFirst().orElse(file.length());
+            assertEquals(expected, starts[range]);
+        }
+        assertEquals(this.read(file, 0, Long.MAX_VALUE), this.readRanges(file, starts));
+    }
+
+    @Test
+    public void testAmbiguousOffsetsJoinThePreviousRange() throws IOException {
+        StringBuilder content = new StringBuilder("id;text;value\n");
+        for (int record = 0; record < 3; record++) {
+            content.append(record).append(";\"");
+            for (int line = 0; line < 20000; line++)        // Far longer than the window around an offset
+                content.append("line ").append(line).append('\n');
+            content.append("\";").append(record).append('\n');
+        }
+        File file = this.write(content.toString());
+
+        long[] starts = this.getRangeStarts(file, 3, 3);
+
+        assertArrayEquals(new long[]{0, file.length(), file.length()}, starts);
+        assertEquals(this.read(file, 0, Long.MAX_VALUE), this.readRanges(file, starts));
+    }
+
+    @Test
+    public void testMoreRangesThanRecords() throws IOException {
+        File file = this.write("a;\"b\nc\nd\ne\nf\ng\";h\n");
+
+        long[] starts = this.getRangeStarts(file, 8, 2);
+
+        assertArrayEquals(new long[]{0, file.length(), file.length(), file.length(), file.length(), file.length(), file.length(), file.length()}, starts);
+        assertEquals(this.read(file, 0, Long.MAX_VALUE), this.readRanges(file, starts));
+    }
+
+    // Finds each range's start independently, like the readers of a file do
+    private long[] getRangeStarts(File file, int ranges, int fields) throws IOException {
+        long[] starts = new long[ranges];
+        for (int range = 0; range < ranges; range++)
+            starts[range] = this.inputConfiguration.getRangeStart(file, range, ranges, fields);
+        return starts;
+    }
+
+    private File write(String content) throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private List<List<String>> readRanges(File file, long[] starts) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        for (int range = 0; range < starts.length; range++)
+            records.addAll(this.read(file, starts[range], range == starts.length - 1 ? Long.MAX_VALUE : starts[range + 1]));
+        return records;
+    }
+
+    // Reads the records that begin within the byte range [start, end) like an InputReader does
+    private List<List<String>> read(File file, long start, long end) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvParser parser = this.inputConfiguration.createCsvParser(file, start)) {
+            while (parser.getPosition() < end && parser.next())
+                records.add(Arrays.asList(parser.toArray()));
+        }
+        return records;
+    }
+}
@@ -8,16 +8,56 @@ import de.ddm.singletons.SystemConfigurationSingleton;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class LargeMessageProxyTest {
 
     @ClassRule
     public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
 
+    private int maxMessageSize;
+    private int windowSize;
+    private boolean compressionEnabled;
+    private int compressionThreshold;
+    private long maxPooledBytes;
+    private int maxChunksInFlight;
+
+    // The tests tune the proxy's static configuration, which must not leak into other tests
+    @Before
+    public void saveConfiguration() {
+        this.maxMessageSize = LargeMessageProxy.MAX_MESSAGE_SIZE;
+        this.windowSize = LargeMessageProxy.WINDOW_SIZE;
+        this.compressionEnabled = LargeMessageProxy.COMPRESSION_ENABLED;
+        this.compressionThreshold = LargeMessageProxy.COMPRESSION_THRESHOLD;
+        this.maxPooledBytes = LargeMessageProxy.MAX_POOLED_BYTES;
+        this.maxChunksInFlight = LargeMessageProxy.MAX_CHUNKS_IN_FLIGHT;
+    }
+
+    @After
+    public void restoreConfiguration() {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = this.maxMessageSize;
+        LargeMessageProxy.WINDOW_SIZE = this.windowSize;
+        LargeMessageProxy.COMPRESSION_ENABLED = this.compressionEnabled;
+        LargeMessageProxy.COMPRESSION_THRESHOLD = this.compressionThreshold;
+        LargeMessageProxy.MAX_POOLED_BYTES = this.maxPooledBytes;
+        LargeMessageProxy.MAX_CHUNKS_IN_FLIGHT = this.maxChunksInFlight;
+    }
+
     @Test
     public void testLargeMessageSending() {
         LargeMessageProxy.MAX_MESSAGE_SIZE = 2;
@@ -35,6 +75,283 @@ public class LargeMessageProxyTest {
         probe.expectNoMessage();
     }
 
+    @Test
+    public void testWindowedLargeMessageSending() {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = 2;
+        LargeMessageProxy.WINDOW_SIZE = 3;
+
+        TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+
+        ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "windowedSender_" + LargeMessageProxy.DEFAULT_NAME);
+        ActorRef<LargeMessageProxy.Message> receiverLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "windowedReceiver_" + LargeMessageProxy.DEFAULT_NAME);
+
+        LargeMessageProxy.LargeMessage message = new MyLargeMessage();
+
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(message, receiverLargeMessageProxy));
+
+        probe.expectMessage(message);
+        probe.expectNoMessage();
+    }
+
+    @Test
+    public void testWindowedChunksPrecedeAcknowledgement() {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = 2;
+        LargeMessageProxy.WINDOW_SIZE = 3;
+
+        TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+        TestProbe<LargeMessageProxy.Message> receiver = testKit.createTestProbe();
+
+        ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "windowSender_" + LargeMessageProxy.DEFAULT_NAME);
+
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(new MyLargeMessage(), receiver.getRef()));
+
+        LargeMessageProxy.ConnectMessage connect = receiver.expectMessageClass(LargeMessageProxy.ConnectMessage.class);
+        assertEquals(3, connect.getWindowSize());
+        senderLargeMessageProxy.tell(new LargeMessageProxy.ConnectAckMessage(connect.getSenderTransmissionKey(), 0, LargeMessageProxy.Codec.NONE));
+
+        // The whole window is sent without waiting for an acknowledgement, but not a chunk more
+        for (int chunk = 0; chunk < 3; chunk++) {
+            LargeMessageProxy.BytesMessage bytes = receiver.expectMessageClass(LargeMessageProxy.BytesMessage.class);
+            assertEquals(2 * chunk, bytes.getOffset());
+        }
+        receiver.expectNoMessage();
+
+        senderLargeMessageProxy.tell(new LargeMessageProxy.BytesAckMessage(connect.getSenderTransmissionKey(), 0, 2));
+        assertEquals(6, receiver.expectMessageClass(LargeMessageProxy.BytesMessage.class).getOffset());
+        receiver.expectNoMessage();
+    }
+
+    @Test
+    public void testCompressedLargeMessageSending() {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = 2;
+        LargeMessageProxy.COMPRESSION_THRESHOLD = 0;
+
+        TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+
+        ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "compressedSender_" + LargeMessageProxy.DEFAULT_NAME);
+        ActorRef<LargeMessageProxy.Message> receiverLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "compressedReceiver_" + LargeMessageProxy.DEFAULT_NAME);
+
+        LargeMessageProxy.LargeMessage message = new MyLargeMessage();
+
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(message, receiverLargeMessageProxy));
+
+        probe.expectMessage(message);
+        probe.expectNoMessage();
+    }
+
+    @Test
+    public void testSeveralCompressedLargeMessagesSending() {
+        LargeMessageProxy.COMPRESSION_THRESHOLD = 0;
+
+        for (int maxMessageSize = 2; maxMessageSize <= 3; maxMessageSize++) {
+            LargeMessageProxy.MAX_MESSAGE_SIZE = maxMessageSize;
+
+            TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+
+            ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "severalCompressedSender" + maxMessageSize + "_" + LargeMessageProxy.DEFAULT_NAME);
+            ActorRef<LargeMessageProxy.Message> receiverLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "severalCompressedReceiver" + maxMessageSize + "_" + LargeMessageProxy.DEFAULT_NAME);
+
+            Set<LargeMessageProxy.LargeMessage> messages = new HashSet<>();
+            for (int i = 0; i < 5; i++)
+                messages.add(new MyLargeMessage("Message " + i + " of a series of compressed messages"));
+            for (LargeMessageProxy.LargeMessage message : messages)
+                senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(message, receiverLargeMessageProxy));
+
+            assertEquals(messages, new HashSet<>(probe.receiveSeveralMessages(messages.size())));
+            probe.expectNoMessage();
+        }
+    }
+
+    @Test
+    public void testCompressionNegotiation() throws DataFormatException {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = 100;
+        LargeMessageProxy.COMPRESSION_THRESHOLD = 0;
+
+        TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+        TestProbe<LargeMessageProxy.Message> receiver = testKit.createTestProbe();
+
+        ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "negotiatingSender_" + LargeMessageProxy.DEFAULT_NAME);
+
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            content.append("compressible ");
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(new MyLargeMessage(content.toString()), receiver.getRef()));
+
+        LargeMessageProxy.ConnectMessage connect = receiver.expectMessageClass(LargeMessageProxy.ConnectMessage.class);
+        assertEquals(LargeMessageProxy.Codec.DEFLATE, connect.getCodec());
+        senderLargeMessageProxy.tell(new LargeMessageProxy.ConnectAckMessage(connect.getSenderTransmissionKey(), 0, LargeMessageProxy.Codec.DEFLATE));
+
+        // Acknowledge every chunk and inflate the chunks until the payload is complete; no empty chunk may follow it
+        Inflater inflater = new Inflater();
+        byte[] payload = new byte[connect.getLargeMessageSize()];
+        int inflatedBytes = 0;
+        int compressedBytes = 0;
+        while (!inflater.finished()) {
+            LargeMessageProxy.BytesMessage bytes = receiver.expectMessageClass(LargeMessageProxy.BytesMessage.class);
+            byte[] chunk = new byte[bytes.getBytes().remaining()];
+            bytes.getBytes().duplicate().get(chunk);
+            assertTrue(chunk.length > 0);
+            assertEquals(compressedBytes, bytes.getOffset());
+            compressedBytes += chunk.length;
+            inflater.setInput(chunk);
+            while (!inflater.needsInput() && !inflater.finished())
+                inflatedBytes += inflater.inflate(payload, inflatedBytes, payload.length - inflatedBytes);
+            senderLargeMessageProxy.tell(new LargeMessageProxy.BytesAckMessage(connect.getSenderTransmissionKey(), 0, compressedBytes));
+        }
+        inflater.end();
+        receiver.expectNoMessage();
+
+        assertEquals(connect.getLargeMessageSize(), inflatedBytes);
+        assertTrue(compressedBytes < connect.getLargeMessageSize() / 10);
+    }
+
+    @Test
+    public void testPrioritizedLargeMessageSending() {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = 2;
+        LargeMessageProxy.WINDOW_SIZE = 4;
+        LargeMessageProxy.MAX_CHUNKS_IN_FLIGHT = 1;
+
+        TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+        TestProbe<LargeMessageProxy.Message> receiver = testKit.createTestProbe();
+
+        ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "prioritizedSender_" + LargeMessageProxy.DEFAULT_NAME);
+
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(new MyLargeMessage(), receiver.getRef(), LargeMessageProxy.Lane.BULK));
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(new MyLargeMessage("Hello World!"), receiver.getRef(), LargeMessageProxy.Lane.HIGH));
+
+        // Both transmissions are connected before either sends a chunk, so that the bulk transmission cannot finish before the other one starts
+        LargeMessageProxy.ConnectMessage bulkConnect = receiver.expectMessageClass(LargeMessageProxy.ConnectMessage.class);
+        LargeMessageProxy.ConnectMessage highConnect = receiver.expectMessageClass(LargeMessageProxy.ConnectMessage.class);
+        assertTrue(bulkConnect.getLargeMessageSize() > highConnect.getLargeMessageSize());
+        senderLargeMessageProxy.tell(new LargeMessageProxy.ConnectAckMessage(bulkConnect.getSenderTransmissionKey(), 0, LargeMessageProxy.Codec.NONE));
+        senderLargeMessageProxy.tell(new LargeMessageProxy.ConnectAckMessage(highConnect.getSenderTransmissionKey(), 1, LargeMessageProxy.Codec.NONE));
+
+        // The probe acknowledges every second chunk of a transmission like a receiver with a window of four chunks does
+        int[] sizes = {bulkConnect.getLargeMessageSize(), highConnect.getLargeMessageSize()};
+        int[] received = new int[2];
+        int[] chunks = new int[2];
+        List<Integer> completed = new ArrayList<>();
+        while (completed.size() < 2) {
+            LargeMessageProxy.BytesMessage bytes = receiver.expectMessageClass(LargeMessageProxy.BytesMessage.class);
+            int transmission = bytes.getReceiverTransmissionKey();
+            received[transmission] = bytes.getOffset() + bytes.getBytes().remaining();
+            chunks[transmission]++;
+            if (received[transmission] == sizes[transmission])
+                completed.add(transmission);
+            else if (chunks[transmission] % 2 == 0)
+                senderLargeMessageProxy.tell(new LargeMessageProxy.BytesAckMessage(bytes.getSenderTransmissionKey(), transmission, received[transmission]));
+        }
+
+        assertEquals(Arrays.asList(1, 0), completed);
+        receiver.expectNoMessage();
+    }
+
+    @Test
+    public void testHighTrafficOvertakesQueuedBulkTransfer() {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = 1000;
+        LargeMessageProxy.WINDOW_SIZE = 4;
+        LargeMessageProxy.MAX_CHUNKS_IN_FLIGHT = 1;
+
+        TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+        TestProbe<LargeMessageProxy.Message> receiver = testKit.createTestProbe();
+
+        ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "overtakingSender_" + LargeMessageProxy.DEFAULT_NAME);
+        ActorRef<LargeMessageProxy.Message> receiverLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "overtakingReceiver_" + LargeMessageProxy.DEFAULT_NAME);
+
+        char[] content = new char[20000];
+        Arrays.fill(content, 'x');
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(new MyLargeMessage(new String(content)), receiver.getRef(), LargeMessageProxy.Lane.BULK));
+        LargeMessageProxy.ConnectMessage connect = receiver.expectMessageClass(LargeMessageProxy.ConnectMessage.class);
+        senderLargeMessageProxy.tell(new LargeMessageProxy.ConnectAckMessage(connect.getSenderTransmissionKey(), 0, LargeMessageProxy.Codec.NONE));
+
+        // The bulk transfer uses up the budget until the receiver acknowledges its first two chunks
+        receiver.expectMessageClass(LargeMessageProxy.BytesMessage.class);
+        LargeMessageProxy.BytesMessage bytes = receiver.expectMessageClass(LargeMessageProxy.BytesMessage.class);
+        receiver.expectNoMessage();
+
+        // Small messages queue in their lanes instead of bypassing the scheduler
+        LargeMessageProxy.LargeMessage bulkMessage = new MyLargeMessage("bulk");
+        LargeMessageProxy.LargeMessage highMessage = new MyLargeMessage("high");
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(bulkMessage, receiver.getRef(), LargeMessageProxy.Lane.BULK));
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(highMessage, receiver.getRef(), LargeMessageProxy.Lane.HIGH));
+        receiver.expectNoMessage();
+
+        // The high message goes first once the budget frees up, and the small bulk message waits behind the transfer's next chunks
+        int received = bytes.getOffset() + bytes.getBytes().remaining();
+        int chunks = 2;
+        senderLargeMessageProxy.tell(new LargeMessageProxy.BytesAckMessage(bytes.getSenderTransmissionKey(), 0, received));
+        List<Object> order = new ArrayList<>();
+        while (order.size() < 3) {
+            LargeMessageProxy.Message message = receiver.receiveMessage();
+            if (message instanceof LargeMessageProxy.DirectMessage) {
+                receiverLargeMessageProxy.tell(message);
+                order.add(probe.receiveMessage());
+                continue;
+            }
+            bytes = (LargeMessageProxy.BytesMessage) message;
+            received = bytes.getOffset() + bytes.getBytes().remaining();
+            if (++chunks == 4)
+                order.add("chunks");
+            if (received < connect.getLargeMessageSize() && chunks % 2 == 0)
+                senderLargeMessageProxy.tell(new LargeMessageProxy.BytesAckMessage(bytes.getSenderTransmissionKey(), 0, received));
+        }
+
+        assertEquals(Arrays.asList(highMessage, "chunks", bulkMessage), order);
+    }
+
+    @Test
+    public void testQueuedLargeMessageSending() {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = 2;
+        LargeMessageProxy.MAX_CHUNKS_IN_FLIGHT = 1;
+
+        // A window of one chunk makes every transmission wait for an acknowledgement after each chunk
+        for (int windowSize : new int[]{1, 8}) {
+            LargeMessageProxy.WINDOW_SIZE = windowSize;
+
+            TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+
+            ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "queuedSender" + windowSize + "_" + LargeMessageProxy.DEFAULT_NAME);
+            ActorRef<LargeMessageProxy.Message> receiverLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "queuedReceiver" + windowSize + "_" + LargeMessageProxy.DEFAULT_NAME);
+
+            Set<LargeMessageProxy.LargeMessage> messages = new HashSet<>();
+            for (int i = 0; i < 3; i++) {
+                LargeMessageProxy.LargeMessage highMessage = new MyLargeMessage("High priority message " + i);
+                LargeMessageProxy.LargeMessage bulkMessage = new MyLargeMessage("Bulk message " + i + " with a somewhat longer content");
+                messages.add(highMessage);
+                messages.add(bulkMessage);
+                senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(highMessage, receiverLargeMessageProxy, LargeMessageProxy.Lane.HIGH));
+                senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(bulkMessage, receiverLargeMessageProxy, LargeMessageProxy.Lane.BULK));
+            }
+
+            assertEquals(messages, new HashSet<>(probe.receiveSeveralMessages(messages.size())));
+            probe.expectNoMessage();
+        }
+    }
+
+    @Test
+    public void testSmallMessageSending() {
+        LargeMessageProxy.MAX_MESSAGE_SIZE = 100000;
+
+        TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+        TestProbe<LargeMessageProxy.Message> receiver = testKit.createTestProbe();
+
+        ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "smallSender_" + LargeMessageProxy.DEFAULT_NAME);
+        ActorRef<LargeMessageProxy.Message> receiverLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "smallReceiver_" + LargeMessageProxy.DEFAULT_NAME);
+
+        LargeMessageProxy.LargeMessage message = new MyLargeMessage();
+
+        // The payload goes to the receiver in one message, without a connect handshake or chunks
+        senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(message, receiver.getRef()));
+
+        LargeMessageProxy.DirectMessage direct = receiver.expectMessageClass(LargeMessageProxy.DirectMessage.class);
+        receiver.expectNoMessage();
+
+        receiverLargeMessageProxy.tell(direct);
+
+        probe.expectMessage(message);
+        probe.expectNoMessage();
+    }
+
     @Test
     public void testProtocol() {
         TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
@@ -0,0 +1,144 @@
+package de.ddm.structures;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class AttributeCombinationsTest {
+
+    // Attributes 0 to 2 (A, B, C) belong to file 0 and attributes 3 to 5 (X, Y, Z) to file 1
+    private static final int[] ATTRIBUTE_FILES = {0, 0, 0, 1, 1, 1};
+
+    @Test
+    public void testBinaryCandidatesJoinUnaryInds() {
+        AttributeCombinations combinations = new AttributeCombinations(ATTRIBUTE_FILES);
+
+        // A ⊆ X, B ⊆ X, B ⊆ Y and C ⊆ A; C ⊆ A joins with nothing, because its sides lie in other files than the others' sides
+        Set<Candidate> candidates = combinations.nextLevel(Arrays.asList(new Candidate(0, 3), new Candidate(1, 3), new Candidate(1, 4), new Candidate(2, 0)));
+
+        assertEquals(set(new int[]{0, 1, 3, 4}), inds(combinations, candidates));     // AB ⊆ XX is no candidate
+    }
+
+    @Test
+    public void testTernaryCandidatesNeedAllBinaryProjections() {
+        AttributeCombinations combinations = new AttributeCombinations(ATTRIBUTE_FILES);
+        List<Candidate> binary = new ArrayList<>(combinations.nextLevel(Arrays.asList(new Candidate(0, 3), new Candidate(1, 4), new Candidate(2, 5))));
+        assertEquals(set(new int[]{0, 1, 3, 4}, new int[]{0, 2, 3, 5}, new int[]{1, 2, 4, 5}), inds(combinations, binary));
+
+        // AB ⊆ XY and AC ⊆ XZ join into ABC ⊆ XYZ, which BC ⊆ YZ must hold for as well
+        assertEquals(set(new int[]{0, 1, 2, 3, 4, 5}), inds(combinations, combinations.nextLevel(binary)));
+        for (Candidate dropped : binary) {
+            List<Candidate> valid = new ArrayList<>(binary);
+            valid.remove(dropped);
+
+            assertEquals(new HashSet<>(), combinations.nextLevel(valid));
+        }
+    }
+
+    @Test
+    public void testCandidatesMatchBruteForceApriori() {
+        int[] attributeFiles = {0, 0, 0, 0, 1, 1, 1};
+        Random random = new Random(19);
+
+        for (int round = 0; round < 50; round++) {
+            AttributeCombinations combinations = new AttributeCombinations(attributeFiles);
+            List<Candidate> valid = new ArrayList<>();
+            for (int dependent = 0; dependent < attributeFiles.length; dependent++)
+                for (int referenced = 0; referenced < attributeFiles.length; referenced++)
+                    if (dependent != referenced && random.nextInt(10) < 7)
+                        valid.add(new Candidate(dependent, referenced));
+
+            for (int arity = 2; !valid.isEmpty(); arity++) {
+                Set<Candidate> candidates = combinations.nextLevel(valid);
+
+                assertEquals("Round " + round + " arity " + arity, candidates(attributeFiles, arity, inds(combinations, valid)), inds(combinations, candidates));
+
+                // Some candidates turn out invalid, so that the next level must prune with the remaining ones
+                valid.clear();
+                for (Candidate candidate : candidates)
+                    if (random.nextInt(10) < 8)
+                        valid.add(candidate);
+            }
+        }
+    }
+
+    // All INDs of the given arity whose dependent attributes ascend, whose referenced attributes differ, whose sides each lie in one
+    // file and whose projections that drop one attribute pair are all valid
+    private static Set<List<List<Integer>>> candidates(int[] attributeFiles, int arity, Set<List<List<Integer>>> valid) {
+        Set<List<List<Integer>>> candidates = new HashSet<>();
+        for (List<Integer> dependent : sequences(attributeFiles, arity, true)) {
+            for (List<Integer> referenced : sequences(attributeFiles, arity, false)) {
+                boolean projectionsValid = true;
+                for (int i = 0; i < arity && projectionsValid; i++) {
+                    List<Integer> dependentProjection = new ArrayList<>(dependent);
+                    List<Integer> referencedProjection = new ArrayList<>(referenced);
+                    dependentProjection.remove(i);
+                    referencedProjection.remove(i);
+                    projectionsValid = valid.contains(Arrays.asList(dependentProjection, referencedProjection));
+                }
+                if (projectionsValid)
+                    candidates.add(Arrays.asList(dependent, referenced));
+            }
+        }
+        return candidates;
+    }
+
+    // The lists of distinct attributes of one file with the given length, only the ascending ones if requested
+    private static List<List<Integer>> sequences(int[] attributeFiles, int length, boolean ascending) {
+        List<List<Integer>> sequences = new ArrayList<>();
+        for (int attribute = 0; attribute < attributeFiles.length; attribute++)
+            sequences.add(new ArrayList<>(Arrays.asList(attribute)));
+        for (int i = 1; i < length; i++) {
+            List<List<Integer>> longer = new ArrayList<>();
+            for (List<Integer> sequence : sequences) {
+                for (int attribute = 0; attribute < attributeFiles.length; attribute++) {
+                    if (attributeFiles[attribute] != attributeFiles[sequence.get(0)] || sequence.contains(attribute))
+                        continue;
+                    if (ascending && attribute < sequence.get(sequence.size() - 1))
+                        continue;
+                    List<Integer> extended = new ArrayList<>(sequence);
+                    extended.add(attribute);
+                    longer.add(extended);
+                }
+            }
+            sequences = longer;
+        }
+        return sequences;
+    }
+
+    private static Set<List<List<Integer>>> inds(AttributeCombinations combinations, Collection<Candidate> candidates) {
+        Set<List<List<Integer>>> inds = new HashSet<>();
+        for (Candidate candidate : candidates)
+            inds.add(Arrays.asList(list(combinations.get(candidate.getDependent())), list(combinations.get(candidate.getReferenced()))));
+        return inds;
+    }
+
+    // The first half of the attributes forms the dependent side and the second half the referenced side
+    private static List<List<Integer>> ind(int[] attributes) {
+        int[] dependent = Arrays.copyOf(attributes, attributes.length / 2);
+        int[] referenced = Arrays.copyOfRange(attributes, attributes.length / 2, attributes.length);
+        return Arrays.asList(list(dependent), list(referenced));
+    }
+
+    private static List<Integer> list(int[] attributes) {
+        List<Integer> list = new ArrayList<>(attributes.length);
+        for (int attribute : attributes)
+            list.add(attribute);
+        return list;
+    }
+
+    private static Set<List<List<Integer>>> set(int[]... inds) {
+        Set<List<List<Integer>>> set = new HashSet<>();
+        for (int[] ind : inds)
+            set.add(ind(ind));
+        return set;
+    }
+}
@@ -0,0 +1,117 @@
+package de.ddm.structures;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnArenaTest {
+
+    private static final int SLAB_INTS = 1024;
+    private static final int SLABS = 4;
+
+    @Test
+    public void testEmptyAndOversizedColumns() {
+        ColumnArena arena = new ColumnArena(SLABS * SLAB_INTS * Integer.BYTES, SLAB_INTS * Integer.BYTES);
+
+        ColumnArena.Block empty = arena.allocate(new int[0]);
+        assertFalse(empty.isOffHeap());
+        assertEquals(0, empty.values().limit());
+        arena.release(empty);
+
+        assertNull(arena.allocate(new int[SLAB_INTS + 1]));
+        ColumnArena.Block full = arena.allocate(column(SLAB_INTS, 1));
+        assertTrue(full.isOffHeap());
+        assertArrayEquals(column(SLAB_INTS, 1), values(full));
+    }
+
+    @Test
+    public void testReleasedBlocksCoalesce() {
+        ColumnArena arena = new ColumnArena(SLAB_INTS * Integer.BYTES, SLAB_INTS * Integer.BYTES);
+        ColumnArena.Block a = arena.allocate(column(256, 1));
+        ColumnArena.Block b = arena.allocate(column(256, 2));
+        ColumnArena.Block c = arena.allocate(column(256, 3));
+        ColumnArena.Block d = arena.allocate(column(256, 4));
+        assertNull(arena.allocate(column(1, 5)));
+
+        // A freed block is reused, and freed neighbours merge with blocks before and after them
+        arena.release(b);
+        assertNull(arena.allocate(column(257, 5)));
+        ColumnArena.Block e = arena.allocate(column(256, 5));
+        assertNotNull(e);
+        arena.release(e);
+        arena.release(a);
+        ColumnArena.Block ab = arena.allocate(column(512, 6));
+        assertNotNull(ab);
+        arena.release(d);
+        arena.release(ab);
+        arena.release(c);
+
+        assertArrayEquals(column(SLAB_INTS, 7), values(arena.allocate(column(SLAB_INTS, 7))));
+    }
+
+    // Interleaves allocations and releases of random sizes and checks that no block overwrites another one; once everything is
+    // released, the free blocks of every slab must have merged again, so that each slab takes a column of its full size
+    @Test
+    public void testRandomInterleavings() {
+        Random random = new Random(99);
+        for (int round = 0; round < 20; round++) {
+            ColumnArena arena = new ColumnArena(SLABS * SLAB_INTS * Integer.BYTES, SLAB_INTS * Integer.BYTES);
+            List<ColumnArena.Block> blocks = new ArrayList<>();
+            List<int[]> columns = new ArrayList<>();
+            int allocatedInts = 0;
+
+            for (int step = 0; step < 2000; step++) {
+                if (!blocks.isEmpty() && random.nextInt(5) < 2) {
+                    int index = random.nextInt(blocks.size());
+                    arena.release(blocks.remove(index));
+                    allocatedInts -= columns.remove(index).length;
+                    continue;
+                }
+                int[] column = column(1 + random.nextInt(random.nextBoolean() ? 16 : SLAB_INTS), step);
+                ColumnArena.Block block = arena.allocate(column);
+                if (block == null) {
+                    assertTrue(allocatedInts > 0);
+                    continue;
+                }
+                assertTrue(block.isOffHeap());
+                blocks.add(block);
+                columns.add(column);
+                allocatedInts += column.length;
+            }
+            for (int i = 0; i < blocks.size(); i++)
+                assertArrayEquals("Round " + round, columns.get(i), values(blocks.get(i)));
+
+            Collections.shuffle(blocks, random);
+            for (ColumnArena.Block block : blocks)
+                arena.release(block);
+            for (int slab = 0; slab < SLABS; slab++)
+                assertNotNull("Round " + round, arena.allocate(column(SLAB_INTS, slab)));
+            assertNull(arena.allocate(column(1, 0)));
+        }
+    }
+
+    private static int[] column(int length, int seed) {
+        int[] column = new int[length];
+        for (int i = 0; i < length; i++)
+            column[i] = seed * 31 + i;
+        return column;
+    }
+
+    private static int[] values(ColumnArena.Block block) {
+        IntBuffer values = block.values().duplicate();
+        int[] array = new int[values.limit()];
+        values.get(array);
+        return array;
+    }
+}
@@ -0,0 +1,164 @@
+package de.ddm.structures;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InclusionGraphTest {
+
+    @Test
+    public void testTransitiveInclusion() {
+        InclusionGraph graph = new InclusionGraph();
+
+        graph.add(Arrays.asList(new Candidate(0, 1), new Candidate(1, 2)), Collections.emptyList());
+
+        assertEquals(set(new Candidate(0, 1), new Candidate(1, 2), new Candidate(0, 2)), new HashSet<>(graph.pollValid()));
+        assertEquals(Collections.emptyList(), graph.pollInvalid());
+    }
+
+    @Test
+    public void testNonInclusionPropagation() {
+        InclusionGraph graph = new InclusionGraph();
+
+        // A ⊆ B and A ⊈ C imply B ⊈ C
+        graph.add(Collections.singletonList(new Candidate(0, 1)), Collections.singletonList(new Candidate(0, 2)));
+
+        assertEquals(Collections.singletonList(new Candidate(0, 1)), graph.pollValid());
+        assertEquals(set(new Candidate(0, 2), new Candidate(1, 2)), new HashSet<>(graph.pollInvalid()));
+
+        // A ⊈ C and B ⊆ C imply A ⊈ B, also if the facts arrive in separate calls
+        graph.add(Collections.singletonList(new Candidate(3, 2)), Collections.emptyList());
+
+        assertEquals(Collections.singletonList(new Candidate(3, 2)), graph.pollValid());
+        assertEquals(set(new Candidate(0, 3), new Candidate(1, 3)), new HashSet<>(graph.pollInvalid()));
+    }
+
+    @Test
+    public void testPollsDrain() {
+        InclusionGraph graph = new InclusionGraph();
+
+        graph.add(Arrays.asList(new Candidate(0, 1), new Candidate(1, 1)), Collections.singletonList(new Candidate(2, 2)));
+
+        assertEquals(Collections.singletonList(new Candidate(0, 1)), graph.pollValid());   // Self-references are ignored
+        assertEquals(Collections.emptyList(), graph.pollValid());
+        assertEquals(Collections.emptyList(), graph.pollInvalid());
+
+        // Known facts are not reported again
+        graph.add(Collections.singletonList(new Candidate(0, 1)), Collections.emptyList());
+
+        assertEquals(Collections.emptyList(), graph.pollValid());
+    }
+
+    // Reveals the true INDs and non-INDs of random attributes in batches and compares the reported facts with the closure
+    // of the revealed facts under the three inference rules, which a fixpoint over all attribute triples computes
+    @Test
+    public void testRandomFactsMatchBruteForceClosure() {
+        Random random = new Random(2024);
+        for (int round = 0; round < 300; round++) {
+            int attributes = 2 + random.nextInt(8);
+            List<Set<Integer>> values = new ArrayList<>();
+            for (int attribute = 0; attribute < attributes; attribute++) {
+                Set<Integer> attributeValues = new HashSet<>();
+                int size = random.nextInt(4);
+                for (int i = 0; i < size; i++)
+                    attributeValues.add(random.nextInt(4));
+                values.add(attributeValues);
+            }
+
+            List<Candidate> facts = new ArrayList<>();
+            for (int dependent = 0; dependent < attributes; dependent++)
+                for (int referenced = 0; referenced < attributes; referenced++)
+                    if (random.nextInt(3) == 0)
+                        facts.add(new Candidate(dependent, referenced));
+            Collections.shuffle(facts, random);
+
+            InclusionGraph graph = new InclusionGraph();
+            boolean[][] known = new boolean[attributes][attributes];
+            boolean[][] isIncluded = new boolean[attributes][attributes];
+            Set<Candidate> reportedValid = new HashSet<>();
+            Set<Candidate> reportedInvalid = new HashSet<>();
+            for (int from = 0; from < facts.size(); ) {
+                int to = Math.min(facts.size(), from + 1 + random.nextInt(4));
+                List<Candidate> valid = new ArrayList<>();
+                List<Candidate> invalid = new ArrayList<>();
+                for (Candidate fact : facts.subList(from, to)) {
+                    boolean included = values.get(fact.getReferenced()).containsAll(values.get(fact.getDependent()));
+                    (included ? valid : invalid).add(fact);
+                    known[fact.getDependent()][fact.getReferenced()] = true;
+                    isIncluded[fact.getDependent()][fact.getReferenced()] = included;
+                }
+                from = to;
+
+                graph.add(valid, invalid);
+                closure(known, isIncluded);
+
+                for (Candidate ind : graph.pollValid())
+                    assertTrue("Round " + round + " repeats " + ind, reportedValid.add(ind));
+                for (Candidate nonInd : graph.pollInvalid())
+                    assertTrue("Round " + round + " repeats " + nonInd, reportedInvalid.add(nonInd));
+                assertEquals("Round " + round, facts(known, isIncluded, true), reportedValid);
+                assertEquals("Round " + round, facts(known, isIncluded, false), reportedInvalid);
+            }
+
+            // Inference never contradicts the values
+            for (Candidate ind : reportedValid)
+                assertTrue(values.get(ind.getReferenced()).containsAll(values.get(ind.getDependent())));
+            for (Candidate nonInd : reportedInvalid)
+                assertTrue(!values.get(nonInd.getReferenced()).containsAll(values.get(nonInd.getDependent())));
+        }
+    }
+
+    private static void closure(boolean[][] known, boolean[][] isIncluded) {
+        int n = known.length;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int a = 0; a < n; a++)
+                for (int b = 0; b < n; b++)
+                    for (int c = 0; c < n; c++) {
+                        if (a == b || b == c || a == c)
+                            continue;
+                        boolean ab = known[a][b] && isIncluded[a][b];
+                        // A ⊆ B and B ⊆ C imply A ⊆ C
+                        if (ab && known[b][c] && isIncluded[b][c])
+                            changed |= derive(known, isIncluded, a, c, true);
+                        // A ⊆ B and A ⊈ C imply B ⊈ C
+                        if (ab && known[a][c] && !isIncluded[a][c])
+                            changed |= derive(known, isIncluded, b, c, false);
+                        // A ⊈ C and B ⊆ C imply A ⊈ B
+                        if (known[a][c] && !isIncluded[a][c] && known[b][c] && isIncluded[b][c])
+                            changed |= derive(known, isIncluded, a, b, false);
+                    }
+        }
+    }
+
+    private static boolean derive(boolean[][] known, boolean[][] isIncluded, int dependent, int referenced, boolean included) {
+        if (known[dependent][referenced])
+            return false;
+        known[dependent][referenced] = true;
+        isIncluded[dependent][referenced] = included;
+        return true;
+    }
+
+    private static Set<Candidate> facts(boolean[][] known, boolean[][] isIncluded, boolean included) {
+        Set<Candidate> facts = new HashSet<>();
+        for (int dependent = 0; dependent < known.length; dependent++)
+            for (int referenced = 0; referenced < known.length; referenced++)
+                if (dependent != referenced && known[dependent][referenced] && isIncluded[dependent][referenced] == included)
+                    facts.add(new Candidate(dependent, referenced));
+        return facts;
+    }
+
+    private static Set<Candidate> set(Candidate... candidates) {
+        return new HashSet<>(Arrays.asList(candidates));
+    }
+}
@@ -0,0 +1,144 @@
+package de.ddm.structures;
+
+import de.ddm.validation.SortedMergeValidator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpillRoundTripTest {
+
+    private static final int ATTRIBUTES = 4;
+    private static final int BATCHES = 12;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSpilledValuesMergeAndEncodeLikeTheirDistinctValues() throws IOException {
+        File directory = this.folder.newFolder();
+        Random random = new Random(2207);
+        Map<Integer, SpillableValueSet> sets = new HashMap<>();
+        Map<Integer, Set<Long>> expectedNumbers = new HashMap<>();
+        Map<Integer, Set<String>> expectedValues = new HashMap<>();
+        for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+            sets.put(attribute, new SpillableValueSet());
+            expectedNumbers.put(attribute, new TreeSet<>());
+            expectedValues.put(attribute, new TreeSet<>(SortedMergeValidator.VALUE_ORDER));
+        }
+
+        // Every batch repeats values of earlier batches, so that the spilled runs of an attribute overlap; attribute 0 spills after
+        // every batch, attribute 1 after every third batch, attribute 2 only once and attribute 3 never
+        for (int batch = 0; batch < BATCHES; batch++) {
+            for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+                String[] values = new String[random.nextInt(40)];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = random.nextInt(10) == 0 ? null : (random.nextBoolean() ? "ä" : "v") + random.nextInt(60);
+                long[] numbers = new long[random.nextInt(40)];
+                for (int i = 0; i < numbers.length; i++)
+                    numbers[i] = random.nextInt(10) == 0 ? Long.MIN_VALUE + random.nextInt(3) : random.nextInt(200) - 100;
+
+                sets.get(attribute).addAll(values);
+                sets.get(attribute).addAll(numbers);
+                for (String value : values)
+                    expectedValues.get(attribute).add(value);
+                for (long number : numbers)
+                    expectedNumbers.get(attribute).add(number);
+            }
+            sets.get(0).spill(directory);
+            if (batch % 3 == 0)
+                sets.get(1).spill(directory);
+            if (batch == BATCHES / 2)
+                sets.get(2).spill(directory);
+        }
+        assertEquals(BATCHES + BATCHES / 3 + 1, files(directory).length);
+
+        Map<Integer, Column> columns = new HashMap<>();
+        for (int attribute = 0; attribute < ATTRIBUTES; attribute++)
+            columns.put(attribute, sets.get(attribute).finish(directory));
+
+        // Finishing merges the runs of a spilled attribute into one column and deletes them
+        assertEquals(3, files(directory).length);
+        for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+            Column column = columns.get(attribute);
+            assertEquals("Attribute " + attribute, attribute < 3, column.isSpilled());
+            assertEquals("Attribute " + attribute, new ArrayList<>(expectedNumbers.get(attribute)), numbers(column));
+            assertEquals("Attribute " + attribute, new ArrayList<>(expectedValues.get(attribute)), values(column));
+        }
+
+        Map<Integer, EncodedColumn> encodedColumns = ValueDictionary.encode(columns, directory);
+
+        // Every value's id is its rank among the distinct values of all attributes, numbers first
+        TreeSet<Long> allNumbers = new TreeSet<>();
+        TreeSet<String> allValues = new TreeSet<>(SortedMergeValidator.VALUE_ORDER);
+        for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+            allNumbers.addAll(expectedNumbers.get(attribute));
+            allValues.addAll(expectedValues.get(attribute));
+        }
+        for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+            EncodedColumn encodedColumn = encodedColumns.get(attribute);
+            int[] expectedIds = new int[expectedNumbers.get(attribute).size() + expectedValues.get(attribute).size()];
+            int i = 0;
+            for (long number : expectedNumbers.get(attribute))
+                expectedIds[i++] = allNumbers.headSet(number).size();
+            for (String value : expectedValues.get(attribute))
+                expectedIds[i++] = allNumbers.size() + allValues.headSet(value).size();
+
+            int[] ids = encodedColumn.ids();
+            assertEquals("Attribute " + attribute, attribute < 3, encodedColumn.isSpilled());
+            assertArrayEquals("Attribute " + attribute, expectedIds, ids);
+            for (int j = 1; j < ids.length; j++)
+                assertTrue("Attribute " + attribute, ids[j - 1] < ids[j]);
+        }
+
+        // Encoding deletes the merged columns and leaves one spill file per spilled attribute, which its encoded column deletes
+        File[] encodedFiles = files(directory);
+        assertEquals(3, encodedFiles.length);
+        for (File file : encodedFiles)
+            assertTrue(file.getName(), file.getName().startsWith("encoded"));
+        for (EncodedColumn encodedColumn : encodedColumns.values())
+            encodedColumn.delete();
+        assertEquals(0, files(directory).length);
+        for (File file : encodedFiles)
+            assertFalse(file.exists());
+    }
+
+    private static File[] files(File directory) {
+        File[] files = directory.listFiles();
+        return files == null ? new File[0] : files;
+    }
+
+    private static List<Long> numbers(Column column) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Column.Reader reader = column.reader()) {
+            while (reader.hasNextNumber())
+                numbers.add(reader.nextNumber());
+        }
+        return numbers;
+    }
+
+    private static List<String> values(Column column) throws IOException {
+        List<String> values = new ArrayList<>();
+        try (Column.Reader reader = column.reader()) {
+            while (reader.hasNextNumber())
+                reader.nextNumber();
+            while (reader.hasNext())
+                values.add(reader.next());
+        }
+        return values;
+    }
+}
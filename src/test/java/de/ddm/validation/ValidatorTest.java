@@ -0,0 +1,178 @@
+package de.ddm.validation;
+
+import de.ddm.structures.Candidate;
+import de.ddm.structures.EncodedColumn;
+import de.ddm.structures.WorkMessage;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class ValidatorTest {
+
+    private static final int PARTITIONS = 4;
+
+    @Test
+    public void testHashValidator() throws IOException {
+        HashValidator validator = new HashValidator();     // Reused like a worker does, so that its table grows and shrinks across tasks
+        assertMatchesBruteForce(validator::inclusionDependencies);
+    }
+
+    @Test
+    public void testSortedMergeValidator() throws IOException {
+        assertMatchesBruteForce(SortedMergeValidator::inclusionDependencies);
+    }
+
+    @Test
+    public void testInvertedIndexValidator() throws IOException {
+        assertMatchesBruteForce(InvertedIndexValidator::inclusionDependencies);
+    }
+
+    @Test
+    public void testHashPartitionedValidation() throws IOException {
+        HashValidator validator = new HashValidator();
+        assertMatchesBruteForce(work -> validatePartitioned(validator::inclusionDependencies, work));
+        assertMatchesBruteForce(work -> validatePartitioned(InvertedIndexValidator::inclusionDependencies, work));
+    }
+
+    @Test
+    public void testEdgeCases() throws IOException {
+        Map<Integer, int[]> columns = new HashMap<>();
+        columns.put(0, new int[0]);
+        columns.put(1, new int[]{1, 2, 3});
+        columns.put(2, new int[]{2});
+        Map<Integer, Integer> attributeColumns = new HashMap<>();
+        attributeColumns.put(10, 0);
+        attributeColumns.put(11, 1);
+        attributeColumns.put(12, 1);        // Two attributes that share a column
+        attributeColumns.put(13, 2);
+
+        List<Candidate> candidates = Arrays.asList(
+                new Candidate(10, 11),      // An empty attribute is included in every attribute
+                new Candidate(11, 10),
+                new Candidate(10, 10),
+                new Candidate(11, 11),      // Attributes reference themselves
+                new Candidate(11, 12),
+                new Candidate(12, 11),
+                new Candidate(13, 12),
+                new Candidate(12, 13));
+        Set<Candidate> expected = new HashSet<>(Arrays.asList(candidates.get(0), candidates.get(2), candidates.get(3), candidates.get(4), candidates.get(5), candidates.get(6)));
+
+        for (Validator validator : validators()) {
+            assertEquals(expected, new HashSet<>(validator.inclusionDependencies(work(candidates, attributeColumns, columns))));
+            assertEquals(Collections.emptyList(), validator.inclusionDependencies(work(Collections.emptyList(), attributeColumns, columns)));
+            assertEquals(Collections.emptyList(), validator.inclusionDependencies(work(Collections.emptyList(), Collections.emptyMap(), columns)));
+        }
+    }
+
+    private static List<Validator> validators() {
+        HashValidator hashValidator = new HashValidator();
+        return Arrays.asList(
+                hashValidator::inclusionDependencies,
+                SortedMergeValidator::inclusionDependencies,
+                InvertedIndexValidator::inclusionDependencies,
+                work -> validatePartitioned(hashValidator::inclusionDependencies, work),
+                work -> validatePartitioned(InvertedIndexValidator::inclusionDependencies, work));
+    }
+
+    private interface Validator {
+        List<Candidate> inclusionDependencies(WorkMessage work) throws IOException;
+    }
+
+    // Validates the candidates on random attributes of random sizes, from empty ones to ones with all values, against a set inclusion test
+    private static void assertMatchesBruteForce(Validator validator) throws IOException {
+        Random random = new Random(4711);
+        for (int task = 0; task < 500; task++) {
+            int numColumns = 1 + random.nextInt(8);
+            int valueRange = 1 + random.nextInt(random.nextBoolean() ? 10 : 1000);
+            Map<Integer, int[]> columns = new HashMap<>();
+            for (int column = 0; column < numColumns; column++)
+                columns.put(column, randomColumn(random, valueRange));
+
+            // Some attributes share a column, so that they hold the same values
+            int numAttributes = 1 + random.nextInt(10);
+            Map<Integer, Integer> attributeColumns = new HashMap<>();
+            for (int attribute = 0; attribute < numAttributes; attribute++)
+                attributeColumns.put(attribute * 7, random.nextInt(numColumns));
+            List<Integer> attributes = new ArrayList<>(attributeColumns.keySet());
+
+            List<Candidate> candidates = new ArrayList<>();
+            for (int dependent : attributes)
+                for (int referenced : attributes)
+                    if (random.nextInt(3) > 0)
+                        candidates.add(new Candidate(dependent, referenced));
+            Collections.shuffle(candidates, random);
+
+            Set<Candidate> expected = new HashSet<>();
+            for (Candidate candidate : candidates)
+                if (isIncluded(columns.get(attributeColumns.get(candidate.getDependent())), columns.get(attributeColumns.get(candidate.getReferenced()))))
+                    expected.add(candidate);
+
+            List<Candidate> actual = validator.inclusionDependencies(work(candidates, attributeColumns, columns));
+            assertEquals("Task " + task, expected, new HashSet<>(actual));
+            assertEquals("Task " + task, expected.size(), actual.size());
+        }
+    }
+
+    private static int[] randomColumn(Random random, int valueRange) {
+        int size = random.nextInt(5) == 0 ? 0 : random.nextInt(valueRange + 1);
+        Set<Integer> values = new TreeSet<>();
+        while (values.size() < size)
+            values.add(random.nextInt(valueRange));
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static boolean isIncluded(int[] dependent, int[] referenced) {
+        Set<Integer> referencedValues = new HashSet<>();
+        for (int value : referenced)
+            referencedValues.add(value);
+        for (int value : dependent)
+            if (!referencedValues.contains(value))
+                return false;
+        return true;
+    }
+
+    private static WorkMessage work(List<Candidate> candidates, Map<Integer, Integer> attributeColumns, Map<Integer, int[]> columns) {
+        Map<Integer, IntBuffer> buffers = new HashMap<>();
+        for (Map.Entry<Integer, int[]> column : columns.entrySet())
+            buffers.put(column.getKey(), IntBuffer.wrap(column.getValue()));
+        return new WorkMessage(candidates, attributeColumns, null).withValues(buffers);
+    }
+
+    // Validates every partition of the columns like the workers of the partitioned strategies do; like the miner, it keeps the
+    // candidates that hold on all partitions
+    private static List<Candidate> validatePartitioned(Validator validator, WorkMessage work) throws IOException {
+        List<Map<Integer, IntBuffer>> partitions = new ArrayList<>();
+        for (int partition = 0; partition < PARTITIONS; partition++)
+            partitions.add(new HashMap<>());
+        for (Map.Entry<Integer, IntBuffer> attributeValues : work.getAttributeValues().entrySet()) {
+            IntBuffer values = attributeValues.getValue();
+            int[] ids = new int[values.limit()];
+            values.duplicate().get(ids);
+            List<EncodedColumn> buckets = new EncodedColumn(ids).partition(null, PARTITIONS);
+            for (int partition = 0; partition < PARTITIONS; partition++)
+                partitions.get(partition).put(attributeValues.getKey(), IntBuffer.wrap(buckets.get(partition).ids()));
+        }
+
+        Set<Candidate> remaining = new HashSet<>(work.getCandidates());
+        for (Map<Integer, IntBuffer> partition : partitions)
+            remaining.retainAll(validator.inclusionDependencies(new WorkMessage(work.getCandidates(), work.getAttributeColumns(), partition)));
+        List<Candidate> ans = new ArrayList<>();
+        for (Candidate candidate : work.getCandidates())
+            if (remaining.contains(candidate))
+                ans.add(candidate);
+        return ans;
+    }
+}